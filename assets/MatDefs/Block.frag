@@ -0,0 +1,11 @@
+#extension GL_EXT_texture_array : enable
+
+uniform sampler2DArray m_Textures;
+
+varying vec3 texCoord;
+varying vec3 lightColor;
+
+void main(){
+    vec4 diffuseColor = texture2DArray(m_Textures, texCoord);
+    gl_FragColor = vec4(lightColor * diffuseColor.rgb, 1.0);
+}
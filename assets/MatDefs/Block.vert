@@ -0,0 +1,20 @@
+uniform mat4 g_WorldViewProjectionMatrix;
+uniform vec4 g_AmbientLightColor;
+uniform float m_Daylight;
+
+attribute vec3 inPosition;
+attribute vec3 inTexCoord; // The layer of the texture array is the 3rd component
+attribute vec4 inColor; // The sky light level, then the block light level of the Block
+
+varying vec3 texCoord;
+varying vec3 lightColor;
+
+void main(){
+    texCoord = inTexCoord;
+    // The sky light fades with the time of day, then the brighter level is turned into a brightness like Light.getBrightness()
+    float level = max(inColor.r * m_Daylight, inColor.g);
+    float brightness = max(1.0, level * 0.25);
+    // Same as Lighting.j3md with vertex colors: a dark gray ambient color multiplied by the brightness
+    lightColor = vec3(0.2) * g_AmbientLightColor.rgb * brightness;
+    gl_Position = g_WorldViewProjectionMatrix * vec4(inPosition, 1.0);
+}
@@ -1,7 +1,7 @@
 package alston.minecraft;
 
 import com.jme3.material.Material;
-import com.jme3.scene.Geometry;
+import com.jme3.math.Vector3f;
 import com.jme3.scene.Spatial;
 import java.io.Serializable;
 import java.util.logging.Level;
@@ -9,10 +9,11 @@ import java.util.logging.Logger;
 
 /**
  * Used to represent the smallest unit of 3D mesurement in the Game, the
- * equivilent of a voxel (volume-pixel), each mesuring exactly 1m*1m*1m.
- * Includes the visual representation of every Block by containing all the
- * appropriate JME Objects, and handles all interactions between them, including
- * optimization.
+ * equivilent of a voxel (volume-pixel), each mesuring exactly 1m*1m*1m. A
+ * Chunk only stores the types and light levels of it's Blocks in primitive
+ * arrays, so unless a Block holds it's own state (a subtype such as a Torch),
+ * a Block Object is simply a view of a position in a Chunk that is created when
+ * it is requested, and handles all interactions between them.
  *
  * @author Alston
  * @version RTM
@@ -25,31 +26,22 @@ public class Block implements Serializable {
     public static final int DIRT_BASED = 2;
     public static final int WOOD_BASED = 3;
     //Private constant to represent the object when saving
-    private static final long serialVersionUID = 3724124124812949L;
+    private static final long serialVersionUID = 3724124124813003L;
     //Fields (transient = will not be written in file)
-    private transient Spatial spatial;
+    private transient Spatial spatial; //Only used by prototypes and subtypes that are not cubes
     private transient Material material;
     private Chunk parent; //The chunk the block belongs in
     private int type; //Default type is air
     private int dropType; //What this will drop when broken
     private int base; //Default base is air
     private int x, y, z; //Coordinates of the block in the chunks
-    private float lightLevel; //The amount of light (0.3f is ambient)
-    private float actualLightLevel; //The actual light lebvel of it's spatial
     private float health; //How much it's damaged (only gets damages when the user tries to break it)
-    private boolean hidden;
     private boolean transparent;
 
-    { //Instance variable initiation block; all constructors will have this
-        spatial = Main.blockGeometry.deepClone();
-        ((Geometry) spatial).getMesh().updateCounts(); //Fixes bug where verticies counta re inaccurate
-        hidden = true; //Default boolean values for air block
-    }
-
     /**
-     * Constuctor of Block; creates an Air Block (this constructor should be
-     * used only to create chunks). Instaniates all the necessary
-     * Objects/varibles as well as assign it from the given parameters.
+     * Constuctor of Block; creates a view of the Block at the given position of
+     * the Chunk. Copies the type of the Block from the Chunk and assigns the
+     * rest of the variables from the prototype of that type.
      *
      * @param x X coordinate of the Block
      * @param y Y coordinate of the Block
@@ -61,10 +53,7 @@ public class Block implements Serializable {
         this.y = y;
         this.z = z;
         this.parent = parent;
-        transparent = true;
-        spatial.setLocalTranslation(x + parent.getX() * Main.MAX_BLOCKS, y, z + parent.getY() * Main.MAX_BLOCKS);
-        setLightLevel(Light.AMBIENT); //Sets it to ambient by default
-        updateVertices();
+        copyFields(parent.getType(x, y, z));
     } //End of constructor
 
     /**
@@ -100,10 +89,20 @@ public class Block implements Serializable {
         this.base = base;
     }
 
+    /**
+     * Checks if the given type of Block can be seen through.
+     *
+     * @param type The type of Block
+     * @return If the type is transparent
+     */
+    public static boolean isTransparent(int type) {
+        return type == Item.AIR || type == Item.TORCH;
+    }
+
     /**
      * Changes the Block's type to something else. For efficency purposes, It
-     * simply changes the relevant values, and only replaces with an entirely
-     * new Block when determines necessary by the Factory.
+     * simply changes the type in the Chunk, and only creates an entirely new
+     * Block when determines necessary by the Factory.
      *
      * @param type The new type of the block
      * @param updatePhysics If the physics should be updated afterwards (Should
@@ -111,30 +110,27 @@ public class Block implements Serializable {
      */
     public void changeToBlock(int type, boolean updatePhysics) {
         Block newBlock = BlockFactory.getInstance().makeBlock(type);
+        int skyHeight = parent.getSkyHeight(x, z); //So the light knows if the Block opens up or covers the column
         if (!Block.class.getName().equals(this.getClass().getName())) { //Was originally not a simple block
             //It's a Torch turning into air; must replace with a normal air block
-            newBlock = new Block(Main.blockPrototypes[Item.AIR].getMaterial(), Item.AIR, Item.NAN, Block.AIR_BASED);
             try {
                 (Item.ITEMS[dropType].clone()).drop(this);
             } catch (CloneNotSupportedException ex) {
                 Logger.getLogger(Block.class.getName()).log(Level.SEVERE, null, ex);
             }
-            replaceWith(newBlock);
-            newBlock.hide();
-            newBlock.deoptimize();
-            Light.updateLights();
+            parent.setBlockEntity(x, y, z, null);
+            parent.setType(x, y, z, Item.AIR);
+            Light.updateBlock(parent, x, y, z, skyHeight);
+            updateMeshes();
+            parent.updateCollisionShape(); //Updates the physics
             return;
         }
-        if (newBlock != null) { //It is not a plain Block; cannot avoid freeing memory and mallocing
-            replaceWith(newBlock);
-            newBlock.optimize(); //Checks if the new Block can be optimized
-            Light.updateLights();
+        if (newBlock != null) { //It is not a plain Block; cannot avoid mallocing
+            replaceWith(newBlock, skyHeight);
             return;
         }
 
         if (type == Item.AIR) { //If it's a solid block transforming to an air block (Block being removed)
-            hide();
-            deoptimize();
             //Drops a clone of the prototype Item
             try {
                 (Item.ITEMS[dropType].clone()).drop(this);
@@ -143,18 +139,17 @@ public class Block implements Serializable {
             } catch (IndexOutOfBoundsException ex) { //Nothing explicitly dropped
             } catch (NullPointerException e){
             }
+            parent.setType(x, y, z, type);
             this.type = type;
             transparent = true;
         } else { //If it's an air block transforming to a solid block (Block being placed)
+            parent.setType(x, y, z, type);
             copyFields(type);
-            if (updatePhysics) { //Leaves the block hidden for efficiency if applicable
-                show();
-                optimize();
-            }
         }
-        if (updatePhysics) {
+        if (updatePhysics) { //Leaves the meshes as they are for efficiency if applicable
+            Light.updateBlock(parent, x, y, z, skyHeight);
+            updateMeshes();
             parent.updateCollisionShape(); //Updates the chunk's physics body
-            Light.updateLights();
         }
     } //End of setMaterial
 
@@ -166,222 +161,71 @@ public class Block implements Serializable {
     private void copyFields(int type) {
         updateHealth(type);
         dropType = Main.blockPrototypes[type].dropType;
-        this.transparent = Main.blockPrototypes[type].transparent;
+        this.transparent = isTransparent(type);
         this.type = type;
         base = Main.blockPrototypes[type].base;
     }
 
     /**
-     * Checks if a Block must be shown as a result of a Block becomming air.
+     * Rebuilds the meshes of the Chunk after this Block changed, along with
+     * the meshes of any Chunk that this Block is on the border of.
      */
-    private void deoptimize() {
-        if (transparent) { //Does not do anything if it's transparent
-            return;
+    private void updateMeshes() {
+        parent.updateMesh();
+        if (x == 0) { //Faces of the Chunk at X-1 could have been covered or uncovered
+            updateAdjacentChunk(-1, 0);
+        } else if (x == Main.MAX_BLOCKS - 1) {
+            updateAdjacentChunk(1, 0);
         }
-        //Checks if any adjacent blocks were hidden, and shows them if they are
-        checkBlockForShowing(0, 0, -1);
-        checkBlockForShowing(0, 0, 1);
-        checkBlockForShowing(0, -1, 0);
-        checkBlockForShowing(0, 1, 0);
-        checkBlockForShowing(-1, 0, 0);
-        checkBlockForShowing(1, 0, 0);
-    }
-
-    /**
-     * Checks if the Block can be hidden and therefore optimize the memory and
-     * lower the polygon count to be rendered.
-     */
-    private void optimize() {
-        if (transparent) { //Does not hide if it's transparent
-            return;
+        if (z == 0) {
+            updateAdjacentChunk(0, -1);
+        } else if (z == Main.MAX_BLOCKS - 1) {
+            updateAdjacentChunk(0, 1);
         }
-        //Checks the block on each side of the current block to see if it can be hidden and optimized 
-        checkBlockForHiding(0, 0, -1);
-        checkBlockForHiding(0, 0, 1);
-        checkBlockForHiding(0, -1, 0);
-        checkBlockForHiding(0, 1, 0);
-        checkBlockForHiding(-1, 0, 0);
-        checkBlockForHiding(1, 0, 0);
     }
 
     /**
-     * Checks if the Block specified by the change in coordinates (ex. yModifier
-     * = 1 is above the Block) can be hidden for optimization as a result of a
-     * Block being placed adjacent to it, and hides it if it does.
+     * Rebuilds the meshes and physics of the Chunk specified by the change in
+     * Chunk coordinates, if it is loaded.
      *
-     * @param xModifier The change in coordinates in the X axis
-     * @param yModifier The change in coordinates in the Y axis
-     * @param zModifier The change in coordinates in the Z axis
+     * @param xModifier The change in the Chunk's x coordinate
+     * @param yModifier The change in the Chunk's y coordinate
      */
-    private void checkBlockForHiding(int xModifier, int yModifier, int zModifier) {
-        Block block = parent.getBlock(x + xModifier, y + yModifier, z + zModifier);
-        if (block == null) { //If it called a chunks that is not loaded
+    private void updateAdjacentChunk(int xModifier, int yModifier) {
+        Chunk chunk = parent.getAdjacentChunk(xModifier, yModifier);
+        if (chunk == null) { //If it called a chunks that is not loaded
             return;
         }
-        if (isCovered(block) && !block.hidden) {
-            block.hide();
-        }
-    } //End of checkBlockForHiding
-
-    /**
-     * Checks if the Block specified by the change in coordinates (ex. yModifier
-     * = 1 is above the Block) needs to be shown as a result of a Block being
-     * removed, and shows it if it does.
-     *
-     * @param xModifier
-     * @param yModifier
-     * @param zModifier
-     */
-    private void checkBlockForShowing(int xModifier, int yModifier, int zModifier) {
-        Block block = parent.getBlock(x + xModifier, y + yModifier, z + zModifier);
-        if (block == null) { //If it called a chunks that is not loaded
-            return;
-        }
-        if (block.hidden && block.type != 0) {
-            block.show();
-            if (block.parent != parent) { //Updates physics for the other chunk also
-                block.parent.updateCollisionShape();
-            }
-        }
-    } //End of checkBlockForShowing
-
-    /**
-     * Checks this block for surrounding Air Blocks. If one is found, the Block
-     * will show.
-     */
-    public void checkBlockForShowing() {
-        if (type != 0) { //Ensures that this is not an Air Block
-            for (int i = -1; i <= 1; i++) {
-                for (int j = -1; j <= 1; j++) {
-                    for (int k = -1; k <= 1; k++) {
-                        try {
-                            if (parent.getBlock(x + i, y + j, z + k).getType() == 0) { //There is an adjacent air Block
-                                show();
-                            }
-                        } catch (NullPointerException e) { //Block does not exist
-                        }
-                    }
-                }
-            }
-        }
+        chunk.updateMesh();
+        chunk.updateCollisionShape(); //Updates physics for the other chunk also
     }
 
-    /**
-     * Checks if all sides are covered (No adjacent air blocks).
-     *
-     * @param block The block that is being checked
-     * @return A boolean representation of whether or not the block is hidden
-     */
-    private boolean isCovered(Block block) {
-        try { //All surrounded in try-catch in case it calls a unloaded/non-existant chunks, it'll just ignore and continue
-            if (block.parent.getBlock(block.x, block.y, block.z - 1).transparent) { //Z-1 
-                return false;
-            }
-        } catch (NullPointerException e) {
-        }
-        try {
-            if (block.parent.getBlock(block.x, block.y, block.z + 1).transparent) { //Z+1
-                return false;
-            }
-        } catch (NullPointerException e) {
-        }
-        try {
-            if (block.parent.getBlock(block.x, block.y - 1, block.z).transparent) { //Y-1 (Down)
-                return false;
-            }
-        } catch (NullPointerException e) {
-        }
-        try {
-            if (block.parent.getBlock(block.x, block.y + 1, block.z).transparent) { //Y+1 (Up)
-                return false;
-            }
-        } catch (NullPointerException e) {
-        }
-        try {
-            if (block.parent.getBlock(block.x - 1, block.y, block.z).transparent) { //X-1
-                return false;
-            }
-        } catch (NullPointerException e) {
-        }
-        try {
-            if (block.parent.getBlock(block.x + 1, block.y, block.z).transparent) { //X+1
-                return false;
-            }
-        } catch (NullPointerException e) {
-        }
-        return true; //If it reaches here, it means there is no adjacent airblocks and it must be covered
-    } //End of isCovered
-
-    /**
-     * Adds the block to the Chunk's node and marks it as not hidden.
-     */
-    protected void show() {
-        hidden = false;
-        //Restores the Block's appearence
-        material = Main.blockPrototypes[type].material;
-        spatial.setMaterial(material);
-        parent.getNode().attachChild(spatial); //Adds to chunk's node
-    } //End of showBlock
-
-    /**
-     * Removes the block from the Chunk's node and marks it as hidden.
-     */
-    private void hide() {
-        hidden = true;
-        parent.getNode().detachChild(spatial); //Removes from chunk
-        material = null;
-    } //End of hideBlock
-
     /**
      * Replaces this Block with a new Block.
      *
      * @param newBlock The Block that will replace this Block.
+     * @param skyHeight The sky height of the column before it was replaced
      */
-    private void replaceWith(Block newBlock) {
-        parent.getNode().detachChild(spatial);
-        parent.getBlocks()[x][y][z] = newBlock;
+    private void replaceWith(Block newBlock, int skyHeight) {
         newBlock.setLocation(x, y, z, parent);
-        newBlock.show();
+        parent.setBlockEntity(x, y, z, newBlock);
+        Light.updateBlock(parent, x, y, z, skyHeight);
+        updateMeshes();
         parent.updateCollisionShape(); //Updates the physics
     }
 
     /**
-     * Restores the Block's memory intensive Objects (Spatial and Material);
-     * called to de-compress when LOADING A CHUNK.
-     */
-    public void restore() {
-        //Restores the Block's spatial (ALL Blocks must have one, even if not used due to bugs in JME library)
-        spatial = Main.blockPrototypes[getType()].getSpatial().deepClone();
-        ((Geometry) spatial).getMesh().updateCounts();
-        spatial.setLocalTranslation(x + parent.getX() * Main.MAX_BLOCKS, y, z + parent.getY() * Main.MAX_BLOCKS);
-        setLightLevel(lightLevel); //Restores the light's level
-        Utility.setLightLevel(spatial, lightLevel);
-        if (!hidden) { //Only restores if it's not hidden 
-            material = Main.blockPrototypes[type].material;
-            spatial.setMaterial(material);
-            show();
-        }
-    }
-
-    /**
-     * Sets up the Block's spatial and material from loading from a file
+     * Sets up the Block's spatial from loading from a file; only called for
+     * Blocks that hold their own state.
      *
      * @param parent A refrence to the Chunk that this belongs to (Bug
      * workaround)
      */
     public void setupFromFile(Chunk parent) {
         this.parent = parent;
-        spatial = Main.blockPrototypes[type].getSpatial().deepClone();
-        ((Geometry) spatial).getMesh().updateCounts();
-        spatial.setLocalTranslation(x + parent.getX() * Main.MAX_BLOCKS, y, z + parent.getY() * Main.MAX_BLOCKS);
-        if (!hidden) {
-            material = Main.blockPrototypes[type].material;
-            spatial.setMaterial(material);
-            parent.getNode().attachChild(spatial);
+        if (Main.blockPrototypes[type].getSpatial() != null) { //Not a cube
+            spatial = Main.blockPrototypes[type].getSpatial().clone(true);
         }
-        setLightLevel(lightLevel);
-        Utility.setLightLevel(spatial, lightLevel);
-        updateVertices();
     }
 
     /**
@@ -399,15 +243,6 @@ public class Block implements Serializable {
         }
     }
 
-    /**
-     * Sets the memory intensive variables to a null refrence so the Objects are
-     * eligible for Garbage Collection and free up RAM.
-     */
-    public void compress() {
-        spatial = null;
-        material = null;
-    }
-
     /**
      *
      * @return The health of the block
@@ -458,10 +293,10 @@ public class Block implements Serializable {
 
     /**
      *
-     * @return The light intensity of the Block's vertices
+     * @return The brighter of the light levels of the Block
      */
-    public float getLightLevel() {
-        return lightLevel;
+    public int getLightLevel() {
+        return parent.getLightLevel(x, y, z);
     }
 
     /**
@@ -490,37 +325,10 @@ public class Block implements Serializable {
 
     /**
      *
-     * @return The actual light level of the spatial itself
+     * @return The location of the center of the Block in the world
      */
-    public float getActualLightLevel() {
-        return actualLightLevel;
-    }
-
-    /**
-     *
-     * @return If the Block is currently not rendered
-     */
-    public boolean isHidden() {
-        return hidden;
-    }
-
-    /**
-     * Note: In order for the effects to be applied, call updateVertices()
-     *
-     * @param lightLevel A positive floating point value, with the higher being
-     * brighter
-     */
-    public final void setLightLevel(float lightLevel) {
-        this.lightLevel = lightLevel;
-    }
-
-    /**
-     * Update the vertex colors of the Mesh of the Spatial and updates the
-     * memoization.
-     */
-    public final void updateVertices() {
-        Utility.setLightLevel(spatial, lightLevel);
-        actualLightLevel = lightLevel;
+    public Vector3f getWorldLocation() {
+        return new Vector3f(x + parent.getX() * Main.MAX_BLOCKS, y, z + parent.getY() * Main.MAX_BLOCKS);
     }
 
     /**
@@ -575,6 +383,43 @@ public class Block implements Serializable {
         this.y = y;
         this.z = z;
         this.parent = parent;
-        spatial.setLocalTranslation(x + parent.getX() * Main.MAX_BLOCKS, y, z + parent.getY() * Main.MAX_BLOCKS);
+    }
+
+    /**
+     * Called when the Block is put into a Chunk that is in the scene, either
+     * when it is placed or when it's Chunk is restored. Does nothing, but
+     * lets Blocks with their own state (such as Torches) add what they need.
+     */
+    public void addToWorld() {
+    }
+
+    /**
+     * Called when the Block is taken out of the scene, either when it is
+     * replaced or when it's Chunk is destroyed. Undoes addToWorld().
+     */
+    public void removeFromWorld() {
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Block)) { //Returns false if the parameter is a null refrence or not a Block
+            return false;
+        }
+        final Block other = (Block) obj;
+        if (parent == null || other.parent == null) { //Prototypes are only equal to themselves
+            return this == other;
+        }
+        //Views of the same position are the same Block
+        return parent == other.parent && x == other.x && y == other.y && z == other.z;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1; //Initial hash value
+        //Adds additional values to hash based on the int variables multiplied by prime numbers
+        hash = 31 * hash + x;
+        hash = 31 * hash + y;
+        hash = 31 * hash + z;
+        return hash;
     }
 }
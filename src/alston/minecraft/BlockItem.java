@@ -70,14 +70,13 @@ public class BlockItem extends Item {
                 && Math.round(Main.currentGame.getPlayer().getControl().getPhysicsLocation().z) == z + zModifier) { //Bug Fix (So player doesn't get stuck in a Block)
             return;
         }
-        try {
-            Main.currentGame.getChunk(Main.currentGame.getCurrentChunkX(), Main.currentGame.getCurrentChunkY())
-                    .getBlock(x + xModifier - Main.currentGame.getCurrentChunkX() * Main.MAX_BLOCKS, y + yModifier,
-                    z + zModifier - Main.currentGame.getCurrentChunkY() * Main.MAX_BLOCKS).changeToBlock(getType(), true);
-            setAmount(getAmount() - 1); //Removes 1 from amount
-            place.playInstance(); //Plays the sound
-        } catch (NullPointerException e) { //Block being placed outside loaded chunk
+        Block block = Main.currentGame.getBlockOrNull(x + xModifier, y + yModifier, z + zModifier);
+        if (block == null) { //Block being placed outside loaded chunk
+            return;
         }
+        block.changeToBlock(getType(), true);
+        setAmount(getAmount() - 1); //Removes 1 from amount
+        place.playInstance(); //Plays the sound
     }//End of rightClick
 
     /**
@@ -0,0 +1,158 @@
+package alston.minecraft;
+
+/**
+ * Stores the types of a fixed amount of Blocks compactly by keeping a palette
+ * of the types that are actually in use, and packing the index of every
+ * Block's type within that palette into an array of longs using as few bits
+ * as possible. A storage holding only a single type (such as a layer of air)
+ * does not allocate the packed array at all. This replaces keeping an entire
+ * Block Object for every single position in a Chunk.
+ *
+ * @author Alston
+ * @version RTM
+ */
+public class BlockStorage {
+
+    private int size; //The amount of Blocks that are stored
+    private int paletteSize; //The amount of types in the palette
+    private volatile int[] palette; //The types that are used; the packed values are indexes of this
+    private volatile long[] data; //The packed palette indexes; null if there is only one type
+
+    /**
+     * Creates a new storage where every Block is of the given type.
+     *
+     * @param size The amount of Blocks to store; must be a multiple of 64
+     * @param type The type that all the Blocks will initially be
+     */
+    public BlockStorage(int size, int type) {
+        this.size = size;
+        fill(type);
+    }
+
+    /**
+     * Changes every Block in the storage to the given type and frees the packed
+     * array.
+     *
+     * @param type The new type of every Block
+     */
+    public final synchronized void fill(int type) {
+        palette = new int[]{type, 0};
+        paletteSize = 1;
+        data = null;
+    }
+
+    /**
+     * Gets the type of the Block at the given index.
+     *
+     * @param index The index of the Block
+     * @return The type of the Block
+     */
+    public int get(int index) {
+        long[] packed = data; //Only reads the field once so it is consistent with the bits used
+        if (packed == null) { //Only 1 type
+            return palette[0];
+        }
+        int bits = packed.length * 64 / size;
+        int entriesPerLong = 64 / bits;
+        int shift = (index % entriesPerLong) * bits;
+        return palette[(int) ((packed[index / entriesPerLong] >>> shift) & ((1L << bits) - 1))];
+    }
+
+    /**
+     * Changes the type of the Block at the given index, adding the type to the
+     * palette and widening the packed array if needed.
+     *
+     * @param index The index of the Block
+     * @param type The new type of the Block
+     */
+    public synchronized void set(int index, int type) {
+        int paletteIndex = -1;
+        for (int i = 0; i < paletteSize; i++) { //Palettes are very small, so a linear search is fastest
+            if (palette[i] == type) {
+                paletteIndex = i;
+                break;
+            }
+        }
+        if (paletteIndex == -1) { //A new type for this storage
+            paletteIndex = addToPalette(type);
+        }
+        if (data == null) { //Only happens when the type is the single existing one
+            return;
+        }
+        int bits = getBitsPerEntry();
+        int entriesPerLong = 64 / bits;
+        int shift = (index % entriesPerLong) * bits;
+        long mask = ((1L << bits) - 1) << shift;
+        data[index / entriesPerLong] = (data[index / entriesPerLong] & ~mask) | ((long) paletteIndex << shift);
+    }
+
+    /**
+     * Adds the given type at the end of the palette and widens the packed
+     * array if the current amount of bits can no longer index every type.
+     *
+     * @param type The type to add
+     * @return The index of the type in the palette
+     */
+    private int addToPalette(int type) {
+        if (paletteSize == palette.length) { //Grows the palette
+            int[] newPalette = new int[palette.length * 2];
+            System.arraycopy(palette, 0, newPalette, 0, paletteSize);
+            palette = newPalette;
+        }
+        palette[paletteSize] = type;
+        paletteSize++;
+        if (paletteSize > 1 << getBitsPerEntry()) { //Does not fit anymore
+            int bits = getBitsPerEntry() == 0 ? 1 : getBitsPerEntry() * 2; //1, 2, 4, 8 or 16 bits so entries never straddle 2 longs
+            long[] newData = new long[size / (64 / bits)];
+            if (data != null) { //Copies the existing indexes over
+                int entriesPerLong = 64 / bits;
+                for (int i = 0; i < size; i++) {
+                    newData[i / entriesPerLong] |= (long) getPaletteIndex(i) << ((i % entriesPerLong) * bits);
+                }
+            }
+            data = newData;
+        }
+        return paletteSize - 1;
+    }
+
+    /**
+     * Gets the index within the palette of the Block at the given index.
+     *
+     * @param index The index of the Block
+     * @return The index of it's type in the palette
+     */
+    private int getPaletteIndex(int index) {
+        int bits = getBitsPerEntry();
+        if (bits == 0) {
+            return 0;
+        }
+        int entriesPerLong = 64 / bits;
+        return (int) ((data[index / entriesPerLong] >>> ((index % entriesPerLong) * bits)) & ((1L << bits) - 1));
+    }
+
+    /**
+     *
+     * @return The amount of bits each Block currently uses
+     */
+    public int getBitsPerEntry() {
+        long[] packed = data;
+        return packed == null ? 0 : packed.length * 64 / size;
+    }
+
+    /**
+     *
+     * @return The amount of Blocks stored
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     *
+     * @return The approximate amount of bytes the storage takes up in memory
+     */
+    public int getMemoryUsage() {
+        long[] packed = data;
+        return palette.length * 4 + (packed == null ? 0 : packed.length * 8);
+    }
+}
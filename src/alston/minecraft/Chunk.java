@@ -4,171 +4,416 @@ import com.jme3.bullet.collision.shapes.CollisionShape;
 import com.jme3.bullet.control.RigidBodyControl;
 import com.jme3.bullet.util.CollisionShapeFactory;
 import com.jme3.scene.Node;
-import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.Serializable;
+import com.jme3.scene.Spatial;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Holds an array of Blocks and is and handles all initializations of Blocks and
- * find the Blocks they hold. A Chunk is maxBlocks ^2 * maxBlockY in volume. The
- * use of Chunks instead of a direct array of Blocks is to enable the ability to
- * generate a infinite (or almost infinite, being limited by memory) world. The
- * memory that a typical loaded Chunk consumes is approx. 100MB (varying
- * depending on the amount of Blocks that are hidden and have their memory
- * intensive data null-refrenced), while a non-loaded chunk would take
- * maxBlocksY(maxBlocksX^2)(64 bits [float] + 4 (32 bits) [int] + 2 bits
- * [boolean] + 32 to 64 bits, depending on processor [pointer/reference to
- * parent]).
+ * Holds the types of all the Blocks within it and handles all initializations
+ * of Blocks and find the Blocks they hold. A Chunk is maxBlocks ^2 * maxBlockY
+ * in volume. The use of Chunks instead of a direct array of Blocks is to enable
+ * the ability to generate a infinite (or almost infinite, being limited by
+ * memory) world. The Chunk is split into ChunkSections stacked on top of each
+ * other, which keep the types in a palette-compressed BlockStorage and the
+ * light levels in a primitive array, so a Chunk only takes up a few hundred KB
+ * instead of the ~100MB an array of Block Objects used to, and the sections
+ * that are entirely air take up almost nothing. Block Objects are
+ * only kept for Blocks that have their own state (such as a CraftingTable or a
+ * Torch); any other Block is created on request as a view of this Chunk's
+ * arrays. The Blocks are rendered thru a single combined Mesh made by the
+ * ChunkMesher rather than a Spatial for every Block.
  *
  * @author Alston
  * @version RTM
  */
-public class Chunk implements Serializable {
+public class Chunk {
 
-    //Private constant used for Object serialization
-    private static final long serialVersionUID = 3724124124812948L;
-    //Fields (transient = will not serialize)
-    private Sunlight sunlight; //The sunlight for this Chunk
-    private boolean loaded; //If the chunk is currently rendered and in physics
-    private Block[][][] blocks; //The blocks making up the chunk
+    //Fields (only the edits and blockEntities are written by the ChunkCodec)
+    private ConcurrentHashMap<Integer, Integer> edits; //Types of the blocks changed since the chunk was generated, mapped by index
+    private ConcurrentHashMap<Integer, Block> blockEntities; //Blocks that hold their own state (ex. CraftingTable), mapped by index
     private int x, y; //Location within the world
-    private transient Future updateCollisionFuture; //Keeps track of the thread when updating collision shape
-    private transient Node node; //Node containing spatials of all the blocks
-    private transient RigidBodyControl control; //The collision shape of all the blocks in the chunk for physics
+    private boolean loaded; //If the chunk is currently rendered and in physics; never when read from a file
+    private Sunlight sunlight; //The sunlight for this Chunk
+    private ChunkSection[] sections; //The sections making up the chunk, from the bottom to the top; generated again from the seed when read
+    private boolean generated; //If the terrain is done generating, so any change after is an edit
+    private BitSet lightChanges; //The sections whose light changed since the meshes were last built
+    private int[] skyHeights; //The sky height of every column, by z * MAX_BLOCKS + x; null until the terrain is generated
+    private volatile int generation; //Incremented on every edit
+    private volatile int savedGeneration; //The generation that was last written to the region file
+    private Chunk[] adjacentChunks; //The 3x3 loaded chunks around and including this one; null where not loaded
+    private Future updateCollisionFuture; //Keeps track of the thread when updating collision shape
+    private Node node; //Node containing the meshes and the spatials of the blocks that are not cubes
+    private Node meshNode; //Node containing the combined meshes of the blocks
+    private RigidBodyControl control; //The collision shape of all the blocks in the chunk for physics
 
     /**
-     * Instantiates a new Array of Block, all the associated Objects to the
-     * Chunk, and initiates the variables.
+     * Instantiates the storage for the Blocks, all the associated Objects to
+     * the Chunk, and initiates the variables.
      *
      * @param x The x coordinate of the Chunk in the World
      * @param y The y coordinate of the Chunk in the World
+     * @param seed The seed of the world that the terrain is generated from
      */
-    public Chunk(int x, int y) {
-        blocks = new Block[Main.MAX_BLOCKS][Main.MAX_BLOCKS_Y][Main.MAX_BLOCKS];
+    public Chunk(int x, int y, long seed) {
+        sections = new ChunkSection[Main.MAX_BLOCKS_Y / ChunkSection.HEIGHT];
+        for (int i = 0; i < sections.length; i++) {
+            sections[i] = new ChunkSection();
+        }
+        lightChanges = new BitSet(sections.length);
+        edits = new ConcurrentHashMap<Integer, Integer>();
+        blockEntities = new ConcurrentHashMap<Integer, Block>();
+        adjacentChunks = new Chunk[9];
+        adjacentChunks[4] = this;
         node = new Node();
         control = new RigidBodyControl(0f);
         node.addControl(control);
-        sunlight = new Sunlight(this, 3f);
+        sunlight = new Sunlight(this);
         this.x = x;
         this.y = y;
         loaded = true;
-        setupBlocks();
-        sunlight.setupLighting();
+        setupBlocks(seed);
+        updateSkyHeights();
     } //End of constructor
 
     /**
-     * Called by the Object reader when the Object is read.
+     * Creates a Chunk that is being read by the ChunkCodec. Only the edits and
+     * the Blocks that hold their own state are saved, so the Chunk cannot be
+     * used until setupFromFile() generates it again, and is not loaded until
+     * it is restored.
      *
-     * @param input The ObjectInputStream provided by the Object reader
-     * @throws IOException Something went wrong while reading
-     * @throws ClassNotFoundException Could not find the class of something that
-     * belonged to this (usually serialVersionUUID is wrong)
+     * @param x The x coordinate of the Chunk in the World
+     * @param y The y coordinate of the Chunk in the World
      */
-    private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
-        input.defaultReadObject();
-        if (loaded) { //Re-instantiates all memory-intensive Objects if the chunk is currently loaded
-            node = new Node();
-            Main.blockNode.attachChild(node);
-            for (int i = 0; i < Main.MAX_BLOCKS; i++) { //Restores all blocks in the array
-                for (int j = 0; j < Main.MAX_BLOCKS_Y; j++) {
-                    for (int k = 0; k < Main.MAX_BLOCKS; k++) {
-                        blocks[i][j][k].setupFromFile(this);
-                    }
-                }
-            }
-            control = new RigidBodyControl(CollisionShapeFactory.createMeshShape(node), 0f);
-            addToPhysics();
+    public Chunk(int x, int y) {
+        edits = new ConcurrentHashMap<Integer, Integer>();
+        blockEntities = new ConcurrentHashMap<Integer, Block>();
+        adjacentChunks = new Chunk[9]; //Linked once it is restored
+        adjacentChunks[4] = this;
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Generates the terrain of the Chunk again from the seed after it is read,
+     * then puts back the edits on top of it.
+     *
+     * @param seed The seed of the world
+     */
+    public void setupFromFile(long seed) {
+        sections = new ChunkSection[Main.MAX_BLOCKS_Y / ChunkSection.HEIGHT];
+        for (int i = 0; i < sections.length; i++) {
+            sections[i] = new ChunkSection();
+        }
+        lightChanges = new BitSet(sections.length);
+        sunlight = new Sunlight(this);
+        generateTerrain(seed);
+        int sectionSize = Main.MAX_BLOCKS * Main.MAX_BLOCKS * ChunkSection.HEIGHT;
+        Iterator<Map.Entry<Integer, Integer>> iterator = edits.entrySet().iterator();
+        while (iterator.hasNext()) { //Changes the blocks the player changed
+            Map.Entry<Integer, Integer> edit = iterator.next();
+            sections[edit.getKey() / sectionSize].setType(edit.getKey() % sectionSize, edit.getValue());
+        }
+        Iterator<Block> entityIterator = blockEntities.values().iterator();
+        while (entityIterator.hasNext()) { //Restores all blocks that have their own state
+            entityIterator.next().setupFromFile(this);
         }
-        //Reads each individual field
+    }
 
-    } //End of readObject
+    /**
+     * Loads a Chunk that was set up from a file, by re-instantiating all it's
+     * memory-intensive Objects. Does the same as restore(), but from the Main
+     * thread (when the Game is being loaded).
+     *
+     * @param game The Game the Chunk belongs to
+     */
+    public void restoreFromFile(Game game) {
+        loaded = true;
+        linkAdjacentChunks(game);
+        updateSkyHeights();
+        node = new Node();
+        Main.blockNode.attachChild(node);
+        createBlockEntities();
+        showBlockEntities();
+        updateMesh();
+        updateAdjacentMeshes();
+        control = new RigidBodyControl(CollisionShapeFactory.createMeshShape(node), 0f);
+        addToPhysics();
+    }
 
     /**
      * Gets the Block in the specified coordinates (allows for negatives) from
-     * the Chunk by using a divide and conquer search algorithm. If it is not
-     * located inside the Chunk, it will attempt to access the Block from the
-     * most appropriate Chunk and keep recusively (kinda) doing so until it
-     * either finds the Chunk, or reaches an unloaded Chunk, and would then
-     * return null.
+     * the Chunk. If it is not located inside the Chunk, it will follow the
+     * links to the adjacent loaded Chunks until it either finds the Chunk, or
+     * reaches an unloaded Chunk, and would then return null. Note that unless
+     * the Block holds it's own state, the Block returned is a newly created
+     * view of the Chunk.
      *
      * @param x X coordinate of the specified Block
      * @param y Y coordinate of the specified Block
      * @param z Z coordinate of the specified Block
-     * @return The specified Block
+     * @return The specified Block, or null if it does not exist
      */
     public Block getBlock(int x, int y, int z) {
-        try {
-            if (x >= Main.MAX_BLOCKS) { //On a chunks + 1 in X axis
-                if (z >= Main.MAX_BLOCKS) { //Top Right(X+1,Y+1)
-                    return Main.currentGame.getChunk(this.x + 1, this.y + 1).getBlock(x - Main.MAX_BLOCKS, y, z - Main.MAX_BLOCKS);
-                } else if (z < 0) { //Top Left(X+1,Y-1)
-                    return Main.currentGame.getChunk(this.x + 1, this.y - 1).getBlock(x - Main.MAX_BLOCKS, y, z + Main.MAX_BLOCKS);
-                } else { //Directly Right(X+1)
-                    return Main.currentGame.getChunk(this.x + 1, this.y).getBlock(x - Main.MAX_BLOCKS, y, z);
-                }
-            } else if (x < 0) {  //On a chunks - 1 in X axis
-                if (z >= Main.MAX_BLOCKS) { // Bottom Right(X-1,Y+1)
-                    return Main.currentGame.getChunk(this.x - 1, this.y + 1).getBlock(x + Main.MAX_BLOCKS, y, z - Main.MAX_BLOCKS);
-                } else if (z < 0) { //Bottom Left(X-1,Y-1)
-                    return Main.currentGame.getChunk(this.x - 1, this.y - 1).getBlock(x + Main.MAX_BLOCKS, y, z + Main.MAX_BLOCKS);
-                } else { //Directly Left(X-1)
-                    return Main.currentGame.getChunk(this.x - 1, this.y).getBlock(x + Main.MAX_BLOCKS, y, z);
-                }
-            } else { //On the current X value on the axis
-                if (z >= Main.MAX_BLOCKS) { // Top(Y+1)
-                    return Main.currentGame.getChunk(this.x, this.y + 1).getBlock(x, y, z - Main.MAX_BLOCKS);
-                } else if (z < 0) { //Bottom(Y-1)
-                    return Main.currentGame.getChunk(this.x, this.y - 1).getBlock(x, y, z + Main.MAX_BLOCKS);
-                } else { //Current Chunk (0)
-                    return blocks[x][y][z];
-                }
-            }
-        } catch (NullPointerException e) { //Tried to access a chunk that does not exist
-            return null;
-        } catch (ArrayIndexOutOfBoundsException e) { //Tried to access a block that does not exist
+        if (y < 0 || y >= Main.MAX_BLOCKS_Y) { //Above or below the map
             return null;
         }
+        if (x < 0 || x >= Main.MAX_BLOCKS || z < 0 || z >= Main.MAX_BLOCKS) { //In another Chunk
+            int xModifier = getChunkModifier(x), yModifier = getChunkModifier(z);
+            Chunk chunk = getAdjacentChunk(xModifier, yModifier);
+            return chunk == null ? null : chunk.getBlock(x - xModifier * Main.MAX_BLOCKS, y, z - yModifier * Main.MAX_BLOCKS);
+        }
+        Block blockEntity = blockEntities.get(getIndex(x, y, z));
+        return blockEntity != null ? blockEntity : new Block(x, y, z, this);
     }//End of getBlock
 
     /**
-     * Initiates new blocks in every index in the chunk
+     * Gets the type of the Block at the specified coordinates (allows for
+     * negatives) without creating any Objects, following the links to the
+     * adjacent loaded Chunks if it is not within this Chunk.
+     *
+     * @param x X coordinate of the specified Block
+     * @param y Y coordinate of the specified Block
+     * @param z Z coordinate of the specified Block
+     * @return The type of the Block, or Item.NAN if it does not exist
+     */
+    public int getType(int x, int y, int z) {
+        if (y < 0 || y >= Main.MAX_BLOCKS_Y) { //Above or below the map
+            return Item.NAN;
+        }
+        if (x < 0 || x >= Main.MAX_BLOCKS || z < 0 || z >= Main.MAX_BLOCKS) { //In another Chunk
+            int xModifier = getChunkModifier(x), yModifier = getChunkModifier(z);
+            Chunk chunk = getAdjacentChunk(xModifier, yModifier);
+            return chunk == null ? Item.NAN : chunk.getType(x - xModifier * Main.MAX_BLOCKS, y, z - yModifier * Main.MAX_BLOCKS);
+        }
+        return sections[y / ChunkSection.HEIGHT].getType(getSectionIndex(x, y, z));
+    }
+
+    /**
      *
+     * @param coordinate A coordinate on the X or Z axis relative to this Chunk
+     * @return -1, 0 or 1 depending on which side of this Chunk the coordinate
+     * is on
+     */
+    public static int getChunkModifier(int coordinate) {
+        if (coordinate < 0) {
+            return -1;
+        } else if (coordinate >= Main.MAX_BLOCKS) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the loaded Chunk beside this Chunk specified by the change in Chunk
+     * coordinates (ex. xModifier = 1 is the Chunk at X+1).
+     *
+     * @param xModifier The change in the Chunk's x coordinate (-1 to 1)
+     * @param yModifier The change in the Chunk's y coordinate (-1 to 1)
+     * @return The Chunk, or null if it is not loaded
+     */
+    public Chunk getAdjacentChunk(int xModifier, int yModifier) {
+        return adjacentChunks[(xModifier + 1) * 3 + yModifier + 1];
+    }
+
+    /**
+     * Links this Chunk with the loaded Chunks around it in both directions.
+     * Should be called when the Chunk is loaded and added to the Game.
+     *
+     * @param game The Game the Chunk belongs to
+     */
+    public void linkAdjacentChunks(Game game) {
+        synchronized (Chunk.class) { //Chunks beside each other can be loaded and unloaded at the same time
+            for (int i = -1; i <= 1; i++) {
+                for (int j = -1; j <= 1; j++) {
+                    if (i == 0 && j == 0) { //Itself
+                        continue;
+                    }
+                    Chunk chunk = game.getChunk(x + i, y + j);
+                    if (chunk != null && chunk.isLoaded()) {
+                        adjacentChunks[(i + 1) * 3 + j + 1] = chunk;
+                        chunk.adjacentChunks[(1 - i) * 3 + 1 - j] = this;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the meshes of the loaded Chunks beside this one again once it is
+     * linked to them. The faces of their Blocks that point towards this Chunk
+     * were hidden while it was not loaded, so the Chunks it shares a side with
+     * are always rebuilt; the ones at the corners are only rebuilt if their
+     * light changed, since no face points towards this Chunk.
      */
-    private void setupBlocks() {
-        for (int i = 0; i < Main.MAX_BLOCKS; i++) { //Declares the block in every 
-            for (int j = 0; j < Main.MAX_BLOCKS_Y; j++) {
-                for (int k = 0; k < Main.MAX_BLOCKS; k++) {
-                    blocks[i][j][k] = new Block(i, j, k, this);
+    public void updateAdjacentMeshes() {
+        for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+                Chunk chunk = getAdjacentChunk(i, j);
+                if (chunk != null && chunk != this && (i == 0 || j == 0 || chunk.hasLightChanges())) {
+                    chunk.updateMesh();
                 }
             }
         }
-        generateTerrain();
-    }//End of setupBlocks
+    }
 
     /**
-     * Generates terrain on the Chunk. If called from the Main/Render thread
-     * (Game is being created), it will do so directly. If it is being called
-     * from a seperate thread, the method will enqueue render/physics Objects in
-     * the Main thread to prevents problems due to the JMonkeyEngine lacking
-     * synchronization.
+     * Removes the links between this Chunk and the Chunks around it. Should be
+     * called when the Chunk is unloaded.
      */
-    private void generateTerrain() {
-        generateBedrock();
-        generateRocks();
-        generateSurface();
-        generateTrees();
-        for (int i = 0; i < Main.MAX_BLOCKS; i++) { //Checks if any blocks needs to be shown
-            for (int j = 0; j < Main.MAX_BLOCKS_Y; j++) {
-                for (int k = 0; k < Main.MAX_BLOCKS; k++) {
-                    blocks[i][j][k].checkBlockForShowing();
+    public void unlinkAdjacentChunks() {
+        synchronized (Chunk.class) {
+            for (int i = -1; i <= 1; i++) {
+                for (int j = -1; j <= 1; j++) {
+                    Chunk chunk = adjacentChunks[(i + 1) * 3 + j + 1];
+                    if (chunk != null && chunk != this) {
+                        chunk.adjacentChunks[(1 - i) * 3 + 1 - j] = null;
+                        adjacentChunks[(i + 1) * 3 + j + 1] = null;
+                    }
                 }
             }
         }
+    }
+
+    /**
+     * Changes the type of the Block at the given coordinates within this Chunk
+     * without any of the side effects of Block.changeToBlock() (used to
+     * generate terrain). Once the terrain is generated, the change is kept as
+     * an edit to be saved, and written to the journal right away.
+     *
+     * @param x X coordinate of the Block
+     * @param y Y coordinate of the Block
+     * @param z Z coordinate of the Block
+     * @param type The new type of the Block
+     */
+    public void setType(int x, int y, int z, int type) {
+        ChunkSection section = sections[y / ChunkSection.HEIGHT];
+        int sectionIndex = getSectionIndex(x, y, z);
+        int oldType = generated ? section.getType(sectionIndex) : Item.AIR;
+        section.setType(sectionIndex, type);
+        if (skyHeights != null) { //Keeps the heightmap up to date
+            int column = z * Main.MAX_BLOCKS + x;
+            if (type != Item.AIR && y >= skyHeights[column]) { //Covers the column
+                skyHeights[column] = y + 1;
+            } else if (type == Item.AIR && y == skyHeights[column] - 1) { //Opens up the column down to the next Block
+                skyHeights[column] = getSurfaceHeight(x, z) + 1;
+            }
+        }
+        if (generated) {
+            int index = getIndex(x, y, z);
+            edits.put(index, type);
+            generation++;
+            if (Main.SAVE_ENABLED) { //Kept in the journal until the Chunk is saved
+                Main.worldStorage.logEdit(this.x, this.y, index, oldType, type);
+            }
+        }
+    }
+
+    /**
+     * Gets the index of the given coordinates within the ChunkSection they are
+     * in.
+     *
+     * @param x X coordinate within the Chunk
+     * @param y Y coordinate within the Chunk
+     * @param z Z coordinate within the Chunk
+     * @return The index for the coordinates
+     */
+    private static int getSectionIndex(int x, int y, int z) {
+        return getIndex(x, y % ChunkSection.HEIGHT, z);
+    }
+
+    /**
+     *
+     * @param index The index of the section, with 0 being the bottom
+     * @return The section
+     */
+    public ChunkSection getSection(int index) {
+        return sections[index];
+    }
+
+    /**
+     *
+     * @return The amount of sections stacked in the Chunk
+     */
+    public int getSectionCount() {
+        return sections.length;
+    }
+
+    /**
+     *
+     * @return The Y coordinate right above the highest section that is not
+     * entirely air; every Block at or above it is air
+     */
+    public int getHighestSectionTop() {
+        for (int i = sections.length - 1; i >= 0; i--) {
+            if (!sections[i].isEmpty()) {
+                return (i + 1) * ChunkSection.HEIGHT;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets the index of the given coordinates within this Chunk (used as the
+     * key of the Blocks that hold their own state).
+     *
+     * @param x X coordinate within the Chunk
+     * @param y Y coordinate within the Chunk
+     * @param z Z coordinate within the Chunk
+     * @return The index for the coordinates
+     */
+    private static int getIndex(int x, int y, int z) {
+        return (y * Main.MAX_BLOCKS + z) * Main.MAX_BLOCKS + x;
+    }
+
+    /**
+     * Initiates the blocks in every index in the chunk
+     *
+     * @param seed The seed of the world
+     */
+    private void setupBlocks(long seed) {
+        generateTerrain(seed);
+        addToScene();
+    }//End of setupBlocks
+
+    /**
+     * Generates terrain on the Chunk from the seed of the world. The shape of
+     * the land and the ores come from noise of the world coordinates, and
+     * anything else random comes from a generator made for this Chunk from the
+     * seed and it's coordinates, so a Chunk is always generated the same way
+     * and does not share anything with the other Chunks being generated. Since
+     * it can always be generated again, only the changes made to it after are
+     * saved.
+     *
+     * @param seed The seed of the world
+     */
+    private void generateTerrain(long seed) {
+        Random random = new Random(Noise.hash(seed, x, 0, y)); //Only used by this chunk
+        int[] surfaceHeights = generateSurfaceHeights(seed);
+        generated = false;
+        generateBedrock();
+        generateRocks(seed, surfaceHeights);
+        generateSurface(surfaceHeights);
+        generateTrees(random);
+        generated = true;
+    } //End of generateTerrain
+
+    /**
+     * Creates the meshes and physics of the Chunk and adds them to the scene.
+     * If called from the Main/Render thread (Game is being created), it will
+     * do so directly. If it is being called from a seperate thread, the method
+     * will enqueue render/physics Objects in the Main thread to prevents
+     * problems due to the JMonkeyEngine lacking synchronization.
+     */
+    private void addToScene() {
+        updateMesh(); //Creates the meshes of the blocks
         if (Thread.currentThread().equals(Main.mainThread)) { //If it's being used in the main thread
             control = new RigidBodyControl(CollisionShapeFactory.createMeshShape(node), 0f);
             Main.blockNode.attachChild(node);
@@ -197,7 +442,7 @@ public class Chunk implements Serializable {
                 }
             }); //Modifys the rendering and physics safely by enqueuing it in the main thread
         }
-    } //End of generateTerrain
+    } //End of addToScene
 
     /**
      * Creates a 1 layer thick bedrock layer at the bottom of the map.
@@ -205,31 +450,54 @@ public class Chunk implements Serializable {
     private void generateBedrock() {
         for (int i = 0; i < Main.MAX_BLOCKS; i++) {
             for (int j = 0; j < Main.MAX_BLOCKS; j++) {
-                blocks[i][0][j].changeToBlock(3, false);
+                setType(i, 0, j, Item.BEDROCK);
             }
         }
     }
 
+    /**
+     * Finds the height of the grass in every column of the Chunk from rolling
+     * hills of noise.
+     *
+     * @param seed The seed of the world
+     * @return The y coordinate of the grass, by x * MAX_BLOCKS + z
+     */
+    private int[] generateSurfaceHeights(long seed) {
+        int[] surfaceHeights = new int[Main.MAX_BLOCKS * Main.MAX_BLOCKS];
+        for (int i = 0; i < Main.MAX_BLOCKS; i++) {
+            for (int k = 0; k < Main.MAX_BLOCKS; k++) {
+                float hills = Noise.fractal(seed, (x * Main.MAX_BLOCKS + i) / 64f, (y * Main.MAX_BLOCKS + k) / 64f, 3);
+                surfaceHeights[i * Main.MAX_BLOCKS + k] = 22 + (int) (hills * 20); //From around 24 to 40
+            }
+        }
+        return surfaceHeights;
+    }
+
     /**
      * Generates the layer in between bedrock and the surface, comprising mainly
-     * of stone, and occasionaly various ores.
+     * of stone, and occasionaly various ores. Every ore has it's own noise, and
+     * is placed where the noise is above how rare the ore is, so ores are
+     * found in clusters.
+     *
+     * @param seed The seed of the world
+     * @param surfaceHeights The y coordinate of the grass in every column
      */
-    private void generateRocks() {
-        final float coalSpawnChance = 0.05f, ironSpawnChance = 0.01f, goldSpawnChance = 0.0075f, diamondSpawnChance = 0.001f; //Ore rarity
+    private void generateRocks(long seed, int[] surfaceHeights) {
+        final float coalThreshold = 0.8f, ironThreshold = 0.9f, goldThreshold = 0.92f, diamondThreshold = 0.97f; //Ore rarity
         for (int i = 0; i < Main.MAX_BLOCKS; i++) {
-            for (int j = 1; j < 29; j++) {
-                for (int k = 0; k < Main.MAX_BLOCKS; k++) {
-                    double oreDecider = Math.random(); //Random number that decides if there should be ore, and what ore
-                    if (oreDecider <= diamondSpawnChance) { //Diamond ore
-                        blocks[i][j][k].changeToBlock(8, false);
-                    } else if (oreDecider <= diamondSpawnChance + goldSpawnChance) { //Gold ore
-                        blocks[i][j][k].changeToBlock(7, false);
-                    } else if (oreDecider <= diamondSpawnChance + goldSpawnChance + ironSpawnChance) { //Iron ore
-                        blocks[i][j][k].changeToBlock(6, false);
-                    } else if (oreDecider <= diamondSpawnChance + goldSpawnChance + ironSpawnChance + coalSpawnChance) { //Coal ore
-                        blocks[i][j][k].changeToBlock(5, false);
+            for (int k = 0; k < Main.MAX_BLOCKS; k++) {
+                float worldX = (x * Main.MAX_BLOCKS + i) / 3f, worldZ = (y * Main.MAX_BLOCKS + k) / 3f; //Clusters are about 3 blocks wide
+                for (int j = 1; j <= surfaceHeights[i * Main.MAX_BLOCKS + k] - 4; j++) {
+                    if (Noise.noise(seed + Item.DIAMOND_BLOCK, worldX, j / 3f, worldZ) > diamondThreshold) { //Diamond ore
+                        setType(i, j, k, Item.DIAMOND_BLOCK);
+                    } else if (Noise.noise(seed + Item.GOLD_BLOCK, worldX, j / 3f, worldZ) > goldThreshold) { //Gold ore
+                        setType(i, j, k, Item.GOLD_BLOCK);
+                    } else if (Noise.noise(seed + Item.IRON_BLOCK, worldX, j / 3f, worldZ) > ironThreshold) { //Iron ore
+                        setType(i, j, k, Item.IRON_BLOCK);
+                    } else if (Noise.noise(seed + Item.COAL_BLOCK, worldX, j / 3f, worldZ) > coalThreshold) { //Coal ore
+                        setType(i, j, k, Item.COAL_BLOCK);
                     } else { //Stone
-                        blocks[i][j][k].changeToBlock(4, false);
+                        setType(i, j, k, Item.STONE);
                     }
                 }
             }
@@ -238,32 +506,33 @@ public class Chunk implements Serializable {
 
     /**
      * Generates the dirt and grass laver
+     *
+     * @param surfaceHeights The y coordinate of the grass in every column
      */
-    private void generateSurface() {
-        for (int i = 0; i < Main.MAX_BLOCKS; i++) { //Dirt
-            for (int j = 29; j < 32; j++) {
-                for (int k = 0; k < Main.MAX_BLOCKS; k++) {
-                    blocks[i][j][k].changeToBlock(1, false);
-                }
-            }
-        }
-        for (int i = 0; i < Main.MAX_BLOCKS; i++) { //Grass
+    private void generateSurface(int[] surfaceHeights) {
+        for (int i = 0; i < Main.MAX_BLOCKS; i++) {
             for (int k = 0; k < Main.MAX_BLOCKS; k++) {
-                blocks[i][32][k].changeToBlock(2, false);
+                int surfaceHeight = surfaceHeights[i * Main.MAX_BLOCKS + k];
+                for (int j = surfaceHeight - 3; j < surfaceHeight; j++) { //Dirt
+                    setType(i, j, k, Item.DIRT);
+                }
+                setType(i, surfaceHeight, k, Item.GRASS);
             }
         }
     }
 
     /**
      * Generates trees in random places in the chunk.
+     *
+     * @param random The generator of this Chunk
      */
-    private void generateTrees() {
+    private void generateTrees(Random random) {
         float collectivePossibility = 0f; //Builds up after a while of not spawning trees
         for (int i = 0; i < Main.MAX_BLOCKS; i++) {
             for (int j = 0; j < Main.MAX_BLOCKS; j++) {
-                if (Math.random() * collectivePossibility < 1 && !isTreeNear(i, j) && i > 4 && i < Main.MAX_BLOCKS - 4
+                if (random.nextFloat() * collectivePossibility < 1 && !isTreeNear(i, j) && i > 4 && i < Main.MAX_BLOCKS - 4
                         && j > 4 && j < Main.MAX_BLOCKS - 4) {//Ensures trees are not near and is not at the edge of the chunk
-                    createTree(i, getSurfaceHeight(i, j) + 1, j, false);
+                    createTree(i, getSurfaceHeight(i, j) + 1, j, random, false);
                 } else {
                     collectivePossibility += 0.3f; //More possibility next round
                 }
@@ -277,39 +546,44 @@ public class Chunk implements Serializable {
      * @param x The x coordinate bottom of the tree
      * @param y The y coordinate bottom of the tree
      * @param z The z coordinate bottom of the tree
+     * @param random The generator that decides the height of the tree
      * @param updatePhysics If physics should be updated after this (not
      * generated from chunk creation)
      */
-    public void createTree(int x, int y, int z, boolean updatePhysics) {
-        int treeHeight = (int) (Math.random() * 5) + 4; //Random tree height from 4-8 blocks high
+    public void createTree(int x, int y, int z, Random random, boolean updatePhysics) {
+        int treeHeight = random.nextInt(5) + 4; //Random tree height from 4-8 blocks high
         for (int i = 0; i <= treeHeight; i++) { //Creates trunk
-            blocks[x][y + i][z].changeToBlock(9, false);
+            setType(x, y + i, z, Item.WOOD);
         }
         for (int i = -2; i <= 2; i++) { //Creates leaves (middle)
             for (int j = 2; j <= treeHeight; j++) {
                 for (int k = -1; k <= 1; k++) {
                     if (!(i == 0 && k == 0)) { //So it doesnt replace the trunk
-                        blocks[x + i][y + j][z + k].changeToBlock(10, false);
+                        setType(x + i, y + j, z + k, Item.LEAVES);
                     }
                 }
             }
         }
         for (int i = -1; i <= 1; i++) { //Bottom leaves
             for (int j = 2; j <= treeHeight; j++) {
-                blocks[x + i][y + j][z - 2].changeToBlock(10, false);
+                setType(x + i, y + j, z - 2, Item.LEAVES);
             }
         }
         for (int i = -1; i <= 1; i++) { //Top leaves
             for (int j = 2; j <= treeHeight; j++) {
-                blocks[x + i][y + j][z + 2].changeToBlock(10, false);
+                setType(x + i, y + j, z + 2, Item.LEAVES);
             }
         }
         for (int i = -1; i <= 1; i++) { //1st layer of leaves above trunk
             for (int j = -1; j <= 1; j++) {
-                blocks[x + i][y + treeHeight + 1][z + j].changeToBlock(10, false);
+                setType(x + i, y + treeHeight + 1, z + j, Item.LEAVES);
             }
         }
-        blocks[x][y + treeHeight + 2][z].changeToBlock(10, updatePhysics); //Very top leaf, then updates physics in applicable
+        if (updatePhysics) { //Very top leaf, then updates physics in applicable
+            getBlock(x, y + treeHeight + 2, z).changeToBlock(Item.LEAVES, true);
+        } else {
+            setType(x, y + treeHeight + 2, z, Item.LEAVES);
+        }
 
     }
 
@@ -368,15 +642,15 @@ public class Chunk implements Serializable {
      */
     public void restore() { //Restores the chunk's node and controls (called from a seperate thread)
         loaded = true;
+        linkAdjacentChunks(Main.currentGame);
+        updateSkyHeights();
         boolean controlCreated = false;
         node = new Node();
-        for (int i = 0; i < Main.MAX_BLOCKS; i++) { //Restores all blocks in the array
-            for (int j = 0; j < Main.MAX_BLOCKS_Y; j++) {
-                for (int k = 0; k < Main.MAX_BLOCKS; k++) {
-                    blocks[i][j][k].restore();
-                }
-            }
-        }
+        createBlockEntities();
+        showBlockEntities();
+        Light.updateChunk(this); //Lights up the Chunk and the edges of the Chunks beside it
+        updateMesh(); //Recreates the meshes of the blocks
+        updateAdjacentMeshes();
         while (!controlCreated) { //A control must be created in order for this thread to continue
             try {
                 control = new RigidBodyControl(CollisionShapeFactory
@@ -400,7 +674,6 @@ public class Chunk implements Serializable {
                 return null;
             }
         });
-        sunlight.factorIntensity((float) Math.sin((Main.currentGame.getTime() / 24f * Math.PI))); //Sets to the approriate sunlight
     }//End of restore
 
     /**
@@ -410,25 +683,24 @@ public class Chunk implements Serializable {
      * Main/Render thread.
      */
     public void destroy() { //Removes all refrences to the contents of this chunk (render and physics)
+        loaded = false; //Before unlinking so a Chunk being loaded beside it does not link to it again
+        unlinkAdjacentChunks();
+        Iterator<Block> iterator = blockEntities.values().iterator();
+        while (iterator.hasNext()) { //Their Lights no longer light anything up
+            iterator.next().removeFromWorld();
+        }
         Future future = Main.getInstance().enqueue(new Callable() { //Callable task that will remove chunk from rendering and physics
             public Object call() throws Exception {
                 Main.blockNode.detachChild(node);
                 Main.bulletAppState.getPhysicsSpace().remove(control);
                 node = null;
+                meshNode = null; //The meshes are now eligible for Garbage Collection
                 control = null;
                 return null;
             }
         });
         while (!future.isDone()) { //Waits for the node and control to be removed from main thread until it continues (Bug Fix)
         }
-        for (int i = 0; i < Main.MAX_BLOCKS; i++) { //Destroys all blocks in the array
-            for (int j = 0; j < Main.MAX_BLOCKS_Y; j++) {
-                for (int k = 0; k < Main.MAX_BLOCKS; k++) {
-                    blocks[i][j][k].compress();
-                }
-            }
-        }
-        loaded = false;
     } //End of destroy
 
     /**
@@ -438,13 +710,11 @@ public class Chunk implements Serializable {
      * @return If there is a tree within a 7 m radius at the surface
      */
     private boolean isTreeNear(int x, int z) {
-        for (int i = -7; i <= 7; i++) {
-            for (int j = -7; j <= 7; j++) {
-                try {
-                    if (blocks[x + i][getSurfaceHeight(x, z)][z + j].getType() == 10) { //If there is a leaf block at a surface at the spot
-                        return true;
-                    }
-                } catch (ArrayIndexOutOfBoundsException ex) { //Block deos not exist
+        int surfaceHeight = getSurfaceHeight(x, z);
+        for (int i = Math.max(-7, -x); i <= 7 && x + i < Main.MAX_BLOCKS; i++) { //Only checks blocks that exist
+            for (int j = Math.max(-7, -z); j <= 7 && z + j < Main.MAX_BLOCKS; j++) {
+                if (getType(x + i, surfaceHeight, z + j) == Item.LEAVES) { //If there is a leaf block at a surface at the spot
+                    return true;
                 }
             }
         }
@@ -452,27 +722,323 @@ public class Chunk implements Serializable {
     }
 
     /**
-     * Goes from the top of the map and continues to go down until it finds the
-     * highest non-air Block in a specific spot, given the x and z coordinates.
+     * Goes from the top of the highest section that is not entirely air and
+     * continues to go down until it finds the highest non-air Block in a
+     * specific spot, given the x and z coordinates.
      *
      * @param x The x coordinate of the spot
      * @param z The z coordinate of the splot
      * @return The y coordinate of the highest non-air Block
      */
     public int getSurfaceHeight(int x, int z) {
-        int counter = Main.MAX_BLOCKS_Y - 1;
-        while (blocks[x][counter][z].getType() == 0) {
+        int counter = getHighestSectionTop() - 1;
+        while (counter >= 0 && getType(x, counter, z) == Item.AIR) {
             counter--;
         }
         return counter;
     }
-    
+
     /**
+     * Gets the lowest y coordinate from which the spot is open to the sky (the
+     * Block above the highest non-air Block), following the links to the
+     * adjacent loaded Chunks if it is not within this Chunk.
      *
-     * @return The Blocks that this Chunk contains.
+     * @param x The x coordinate of the spot
+     * @param z The z coordinate of the spot
+     * @return The lowest y coordinate that is open to the sky, or -1 if the
+     * spot is not loaded
      */
-    public Block[][][] getBlocks() {
-        return blocks;
+    public int getSkyHeight(int x, int z) {
+        if (x < 0 || x >= Main.MAX_BLOCKS || z < 0 || z >= Main.MAX_BLOCKS) { //In another Chunk
+            int xModifier = getChunkModifier(x), yModifier = getChunkModifier(z);
+            Chunk chunk = getAdjacentChunk(xModifier, yModifier);
+            return chunk == null ? -1 : chunk.getSkyHeight(x - xModifier * Main.MAX_BLOCKS, z - yModifier * Main.MAX_BLOCKS);
+        }
+        int[] heights = skyHeights; //Only reads the field once
+        return heights == null ? getSurfaceHeight(x, z) + 1 : heights[z * Main.MAX_BLOCKS + x];
+    }
+
+    /**
+     * Builds the heightmap of the sky heights of every column once the terrain
+     * is generated; it is kept up to date by setType() from then on.
+     */
+    private void updateSkyHeights() {
+        int[] heights = new int[Main.MAX_BLOCKS * Main.MAX_BLOCKS];
+        for (int i = 0; i < Main.MAX_BLOCKS; i++) {
+            for (int j = 0; j < Main.MAX_BLOCKS; j++) {
+                heights[j * Main.MAX_BLOCKS + i] = getSurfaceHeight(i, j) + 1;
+            }
+        }
+        skyHeights = heights;
+    }
+
+    /**
+     * Rebuilds the combined Meshes of the Blocks in the Chunk and replaces the
+     * old ones. If the Chunk is already being rendered and this is called from
+     * a seperate thread, the replacing is enqueued in the Main thread.
+     */
+    public void updateMesh() {
+        if (node == null) { //Not loaded
+            return;
+        }
+        synchronized (lightChanges) { //The new meshes have every light change made so far
+            lightChanges.clear();
+        }
+        final Node newMeshNode = ChunkMesher.createMeshNode(this);
+        updateBlockEntityLights();
+        if (node.getParent() == null || Thread.currentThread().equals(Main.mainThread)) { //Not rendered yet, or safe to modify
+            replaceMeshNode(newMeshNode);
+        } else {
+            Main.getInstance().enqueue(new Callable<Object>() { //Safely replaces it in the render thread
+                public Object call() throws Exception {
+                    replaceMeshNode(newMeshNode);
+                    return null;
+                }
+            });
+        }
+    }
+
+    /**
+     * Detaches the current meshes from the Chunk's node and attaches the given
+     * ones.
+     *
+     * @param newMeshNode The Node containing the new meshes
+     */
+    private void replaceMeshNode(Node newMeshNode) {
+        if (node == null) { //Was destroyed in the meantime
+            return;
+        }
+        if (meshNode != null) {
+            node.detachChild(meshNode);
+        }
+        meshNode = newMeshNode;
+        node.attachChild(meshNode);
+    }
+
+    /**
+     * Creates the Blocks that hold their own state for the edits that do not
+     * have one yet, such as the ones put back from a journal, which only keeps
+     * the types.
+     */
+    private void createBlockEntities() {
+        Iterator<Map.Entry<Integer, Integer>> iterator = edits.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Integer> edit = iterator.next();
+            int index = edit.getKey();
+            if (blockEntities.containsKey(index)) { //Was read along with the Chunk
+                continue;
+            }
+            Block block = BlockFactory.getInstance().makeBlock(edit.getValue());
+            if (block != null) { //The type holds it's own state
+                block.setLocation(index % Main.MAX_BLOCKS, index / (Main.MAX_BLOCKS * Main.MAX_BLOCKS),
+                        index / Main.MAX_BLOCKS % Main.MAX_BLOCKS, this);
+                blockEntities.put(index, block);
+            }
+        }
+    }
+
+    /**
+     * Attaches the Spatials of the Blocks that are not cubes (such as Torches)
+     * to the Chunk's node.
+     */
+    private void showBlockEntities() {
+        Iterator<Block> iterator = blockEntities.values().iterator();
+        while (iterator.hasNext()) {
+            showBlockEntity(iterator.next());
+        }
+    }
+
+    /**
+     * Puts the Spatial of the given Block in it's place and attaches it to the
+     * Chunk's node if it has one.
+     *
+     * @param block The Block
+     */
+    private void showBlockEntity(Block block) {
+        if (node == null) { //Not loaded
+            return;
+        }
+        block.addToWorld();
+        if (block.getSpatial() == null) { //A cube
+            return;
+        }
+        Spatial spatial = block.getSpatial();
+        spatial.setMaterial(Main.blockPrototypes[block.getType()].getMaterial());
+        spatial.setLocalTranslation(block.getWorldLocation());
+        Utility.setLightLevel(spatial, Light.getBrightness(getLightLevel(block.getX(), block.getY(), block.getZ())));
+        node.attachChild(spatial);
+    }
+
+    /**
+     * Updates the vertex colors of the Spatials of the Blocks that are not
+     * cubes to their light level.
+     */
+    private void updateBlockEntityLights() {
+        Iterator<Block> iterator = blockEntities.values().iterator();
+        while (iterator.hasNext()) {
+            Block block = iterator.next();
+            if (block.getSpatial() != null) { //Not a cube
+                Utility.setLightLevel(block.getSpatial(), Light.getBrightness(getLightLevel(block.getX(), block.getY(), block.getZ())));
+            }
+        }
+    }
+
+    /**
+     * Gets the Block that holds it's own state at the given coordinates.
+     *
+     * @param x X coordinate of the Block
+     * @param y Y coordinate of the Block
+     * @param z Z coordinate of the Block
+     * @return The Block, or null if the Block there is a plain Block
+     */
+    public Block getBlockEntity(int x, int y, int z) {
+        return blockEntities.get(getIndex(x, y, z));
+    }
+
+    /**
+     * Puts a Block that holds it's own state at the given coordinates, or
+     * removes the one there if null is given.
+     *
+     * @param x X coordinate of the Block
+     * @param y Y coordinate of the Block
+     * @param z Z coordinate of the Block
+     * @param block The Block, or null to remove it
+     */
+    public void setBlockEntity(int x, int y, int z, Block block) {
+        int index = getIndex(x, y, z);
+        Block oldBlock = block == null ? blockEntities.remove(index) : blockEntities.put(index, block);
+        generation++;
+        if (oldBlock != null) {
+            oldBlock.removeFromWorld();
+            if (oldBlock.getSpatial() != null) { //No longer shows the old Spatial
+                oldBlock.getSpatial().removeFromParent();
+            }
+        }
+        if (block != null) {
+            setType(x, y, z, block.getType());
+            showBlockEntity(block);
+        }
+    }
+
+    /**
+     * Gets the light level of the Block at the given coordinates right now:
+     * the brighter of it's block light and it's sky light dimmed by the time
+     * of day, following the links to the adjacent loaded Chunks if it is not
+     * within this Chunk.
+     *
+     * @param x X coordinate of the Block
+     * @param y Y coordinate of the Block
+     * @param z Z coordinate of the Block
+     * @return The light level of the Block, or 0 if it does not exist
+     */
+    public int getLightLevel(int x, int y, int z) {
+        return Math.max(Math.round(getLightLevel(x, y, z, Light.SKY_LIGHT) * Light.getDaylight()),
+                getLightLevel(x, y, z, Light.BLOCK_LIGHT));
+    }
+
+    /**
+     * Gets one of the light levels of the Block at the given coordinates,
+     * following the links to the adjacent loaded Chunks if it is not within
+     * this Chunk.
+     *
+     * @param x X coordinate of the Block
+     * @param y Y coordinate of the Block
+     * @param z Z coordinate of the Block
+     * @param channel Light.SKY_LIGHT or Light.BLOCK_LIGHT
+     * @return The light level of the Block, or 0 if it does not exist
+     */
+    public int getLightLevel(int x, int y, int z, int channel) {
+        if (y < 0 || y >= Main.MAX_BLOCKS_Y) { //Above or below the map
+            return 0;
+        }
+        if (x < 0 || x >= Main.MAX_BLOCKS || z < 0 || z >= Main.MAX_BLOCKS) { //In another Chunk
+            int xModifier = getChunkModifier(x), yModifier = getChunkModifier(z);
+            Chunk chunk = getAdjacentChunk(xModifier, yModifier);
+            return chunk == null ? 0 : chunk.getLightLevel(x - xModifier * Main.MAX_BLOCKS, y, z - yModifier * Main.MAX_BLOCKS, channel);
+        }
+        return sections[y / ChunkSection.HEIGHT].getLightLevel(getSectionIndex(x, y, z), channel);
+    }
+
+    /**
+     * Changes one of the light levels of the Block at the given coordinates,
+     * following the links to the adjacent loaded Chunks if it is not within
+     * this Chunk, and keeps track of the section it is in if it changed.
+     * Note: In order for the effects to be applied, call updateMesh()
+     *
+     * @param x X coordinate of the Block
+     * @param y Y coordinate of the Block
+     * @param z Z coordinate of the Block
+     * @param channel Light.SKY_LIGHT or Light.BLOCK_LIGHT
+     * @param lightLevel The new light level, from 0 to Light.MAX_LEVEL
+     */
+    public void setLightLevel(int x, int y, int z, int channel, int lightLevel) {
+        if (y < 0 || y >= Main.MAX_BLOCKS_Y) { //Above or below the map
+            return;
+        }
+        if (x < 0 || x >= Main.MAX_BLOCKS || z < 0 || z >= Main.MAX_BLOCKS) { //In another Chunk
+            int xModifier = getChunkModifier(x), yModifier = getChunkModifier(z);
+            Chunk chunk = getAdjacentChunk(xModifier, yModifier);
+            if (chunk != null) {
+                chunk.setLightLevel(x - xModifier * Main.MAX_BLOCKS, y, z - yModifier * Main.MAX_BLOCKS, channel, lightLevel);
+            }
+            return;
+        }
+        int section = y / ChunkSection.HEIGHT;
+        //While relighting, the section is only marked at the end if it's light ended up different
+        if (sections[section].setLightLevel(getSectionIndex(x, y, z), channel, lightLevel) && !sections[section].isRelighting()) {
+            synchronized (lightChanges) {
+                lightChanges.set(section);
+            }
+        }
+    }
+
+    /**
+     * Sets every Block in the Chunk back to no light so it can be lit again;
+     * finishRelight() has to be called once it is.
+     */
+    public void resetLightLevels() {
+        for (int i = 0; i < sections.length; i++) {
+            sections[i].resetLightLevels();
+        }
+    }
+
+    /**
+     * Ends the relight started by resetLightLevels(), marking only the
+     * sections whose light ended up different so the others are not meshed
+     * again.
+     */
+    public void finishRelight() {
+        for (int i = 0; i < sections.length; i++) {
+            if (sections[i].finishRelight()) {
+                synchronized (lightChanges) {
+                    lightChanges.set(i);
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * @return If the light of any section changed since the meshes were last
+     * built
+     */
+    public boolean hasLightChanges() {
+        synchronized (lightChanges) {
+            return !lightChanges.isEmpty();
+        }
+    }
+
+    /**
+     *
+     * @return The approximate amount of bytes the Block data of this Chunk
+     * takes up in memory
+     */
+    public int getMemoryUsage() {
+        int memoryUsage = 0;
+        for (int i = 0; i < sections.length; i++) {
+            memoryUsage += sections[i].getMemoryUsage();
+        }
+        return memoryUsage;
     }
 
     /**
@@ -515,6 +1081,88 @@ public class Chunk implements Serializable {
         return node;
     }
 
+    /**
+     *
+     * @return The types of the Blocks changed since the Chunk was generated,
+     * mapped by their index
+     */
+    public Map<Integer, Integer> getEdits() {
+        return edits;
+    }
+
+    /**
+     *
+     * @return The Blocks that hold their own state, mapped by their index
+     */
+    public Map<Integer, Block> getBlockEntities() {
+        return blockEntities;
+    }
+
+    /**
+     *
+     * @return If the Chunk was changed since it was generated, and has to be
+     * saved
+     */
+    public boolean isEdited() {
+        return !edits.isEmpty() || !blockEntities.isEmpty();
+    }
+
+    /**
+     * Puts back an edit that was read from the journal into a Chunk that is
+     * read but not set up. Only the type is kept; if it holds it's own state,
+     * the Block is created when the Chunk is restored.
+     *
+     * @param index The index of the Block
+     * @param type The new type of the Block
+     */
+    public void applyEdit(int index, int type) {
+        edits.put(index, type);
+        blockEntities.remove(index); //Any Block that was there before is gone
+    }
+
+    /**
+     *
+     * @return If the Chunk was edited since it was last written to it's region
+     * file
+     */
+    public boolean isDirty() {
+        return generation != savedGeneration;
+    }
+
+    /**
+     *
+     * @return The amount of edits made to the Chunk since it was loaded
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Marks the Chunk as written up to the given generation; any edits made
+     * after it was copied still have to be saved.
+     *
+     * @param generation The generation of the Chunk when it was copied
+     */
+    public void markSaved(int generation) {
+        savedGeneration = generation;
+    }
+
+    /**
+     * Copies what is saved of the Chunk (the edits and the Blocks that hold
+     * their own state) into a new Chunk, so it can be written in another
+     * Thread while this one keeps changing. The copy has the same generation.
+     * Should be called by the main Thread.
+     *
+     * @return The copy, which is only good for writing
+     */
+    public Chunk snapshot() {
+        Chunk copy = new Chunk(x, y);
+        copy.edits.putAll(edits);
+        copy.blockEntities.putAll(blockEntities);
+        copy.generation = generation;
+        return copy;
+    }
+
     /**
      *
      * @return Whether or not the chunk is currently rendered and in physics
@@ -0,0 +1,230 @@
+package alston.minecraft;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes a Chunk into the compact binary record that is kept in a RegionFile,
+ * and reads it back. A record starts with the version of the format and the
+ * coordinates of the Chunk, followed by the edits of the Chunk as runs of
+ * Blocks in a row that were changed to the same type, then the position and
+ * type of every Block that holds it's own state (a CraftingTable or a Torch).
+ * Everything else is generated again from the seed, and every number is
+ * written in as few bytes as it needs (7 bits per byte, with the highest bit
+ * set if more bytes follow).
+ *
+ * @author Alston
+ * @version RTM
+ */
+public final class ChunkCodec {
+
+    /**
+     * The version of the format that is written.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Not to be instantiated.
+     */
+    private ChunkCodec() {
+    }
+
+    /**
+     * Writes the Chunk into a record.
+     *
+     * @param chunk The Chunk to write
+     * @return The record of the Chunk
+     * @throws IOException Something went wrong while writing
+     */
+    public static byte[] encode(Chunk chunk) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeByte(VERSION);
+        output.writeInt(chunk.getX());
+        output.writeInt(chunk.getY());
+        writeEdits(output, chunk.getEdits());
+        writeBlockEntities(output, chunk.getBlockEntities());
+        output.close();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads a Chunk from it's record straight from the buffer (which can be a
+     * view of a mapped file) without copying it; the Chunk still has to be set
+     * up with setupFromFile().
+     *
+     * @param record The record of the Chunk
+     * @return The Chunk
+     * @throws IOException The record is not a Chunk of a version that can be
+     * read
+     */
+    public static Chunk decode(ByteBuffer record) throws IOException {
+        try {
+            int version = record.get() & 0xFF;
+            if (version != VERSION) {
+                throw new IOException("Chunk record version " + version + " is not supported");
+            }
+            Chunk chunk = new Chunk(record.getInt(), record.getInt());
+            readEdits(record, chunk.getEdits());
+            readBlockEntities(record, chunk);
+            return chunk;
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("Chunk record is truncated", ex);
+        }
+    }
+
+    /**
+     * Writes the edits as runs of Blocks in a row (by index) that were changed
+     * to the same type; each run is the gap from the end of the last run, the
+     * length and the type.
+     *
+     * @param output The stream to write to
+     * @param edits The edits of the Chunk
+     * @throws IOException Something went wrong while writing
+     */
+    private static void writeEdits(DataOutputStream output, Map<Integer, Integer> edits) throws IOException {
+        int[] indices = new int[edits.size()];
+        int[] types = new int[indices.length];
+        int count = 0;
+        Iterator<Integer> iterator = edits.keySet().iterator();
+        while (iterator.hasNext() && count < indices.length) { //Can change while it is being saved
+            indices[count++] = iterator.next();
+        }
+        Arrays.sort(indices, 0, count);
+        int size = 0;
+        for (int i = 0; i < count; i++) { //Copies the types, skipping any edits that were removed in the meantime
+            Integer type = edits.get(indices[i]);
+            if (type != null) {
+                indices[size] = indices[i];
+                types[size++] = type;
+            }
+        }
+        int runs = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || indices[i] != indices[i - 1] + 1 || types[i] != types[i - 1]) { //Starts a new run
+                runs++;
+            }
+        }
+        writeVarInt(output, runs);
+        int end = 0; //The index after the last run
+        for (int i = 0; i < size;) {
+            int length = 1;
+            while (i + length < size && indices[i + length] == indices[i] + length && types[i + length] == types[i]) {
+                length++;
+            }
+            writeVarInt(output, indices[i] - end);
+            writeVarInt(output, length);
+            writeVarInt(output, types[i]);
+            end = indices[i] + length;
+            i += length;
+        }
+    }
+
+    /**
+     * Reads the runs of edits written by writeEdits().
+     *
+     * @param input The buffer to read from
+     * @param edits The edits of the Chunk to read into
+     * @throws IOException Something went wrong while reading
+     */
+    private static void readEdits(ByteBuffer input, Map<Integer, Integer> edits) throws IOException {
+        int runs = readVarInt(input);
+        int end = 0;
+        for (int i = 0; i < runs; i++) {
+            int start = end + readVarInt(input);
+            int length = readVarInt(input);
+            int type = readVarInt(input);
+            for (int j = 0; j < length; j++) {
+                edits.put(start + j, type);
+            }
+            end = start + length;
+        }
+    }
+
+    /**
+     * Writes the index and type of every Block that holds it's own state.
+     * Nothing else of them has to be saved, since a CraftingTable drops
+     * everything in it when it is closed.
+     *
+     * @param output The stream to write to
+     * @param blockEntities The Blocks that hold their own state, by index
+     * @throws IOException Something went wrong while writing
+     */
+    private static void writeBlockEntities(DataOutputStream output, Map<Integer, Block> blockEntities) throws IOException {
+        //Copied first, since it can change while it is being saved
+        ArrayList<Map.Entry<Integer, Block>> entries = new ArrayList<Map.Entry<Integer, Block>>(blockEntities.entrySet());
+        writeVarInt(output, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            Map.Entry<Integer, Block> entry = entries.get(i);
+            writeVarInt(output, entry.getKey());
+            writeVarInt(output, entry.getValue().getType());
+        }
+    }
+
+    /**
+     * Reads the Blocks that hold their own state and puts them in the Chunk
+     * (without showing them or lighting them up until it is restored).
+     *
+     * @param input The buffer to read from
+     * @param chunk The Chunk being read
+     * @throws IOException Something went wrong while reading
+     */
+    private static void readBlockEntities(ByteBuffer input, Chunk chunk) throws IOException {
+        int count = readVarInt(input);
+        for (int i = 0; i < count; i++) {
+            int index = readVarInt(input);
+            int type = readVarInt(input);
+            Block block = BlockFactory.getInstance().makeBlock(type);
+            if (block == null) { //Not a type that holds it's own state anymore
+                Logger.getLogger(ChunkCodec.class.getName()).log(Level.SEVERE, "Block entity of type {0} was skipped", type);
+                continue;
+            }
+            block.setLocation(index % Main.MAX_BLOCKS, index / (Main.MAX_BLOCKS * Main.MAX_BLOCKS),
+                    index / Main.MAX_BLOCKS % Main.MAX_BLOCKS, chunk);
+            chunk.getBlockEntities().put(index, block);
+        }
+    }
+
+    /**
+     * Writes a non-negative int in as few bytes as it needs.
+     *
+     * @param output The stream to write to
+     * @param value The int to write
+     * @throws IOException Something went wrong while writing
+     */
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte(value);
+    }
+
+    /**
+     * Reads an int written by writeVarInt().
+     *
+     * @param input The buffer to read from
+     * @return The int
+     * @throws IOException Something went wrong while reading
+     */
+    private static int readVarInt(ByteBuffer input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = input.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed number in chunk record");
+    }
+}
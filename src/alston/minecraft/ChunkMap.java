@@ -0,0 +1,187 @@
+package alston.minecraft;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Maps the coordinates of every Chunk in the world to the Chunk. The
+ * coordinates are packed into a single long that is used as the key of an
+ * open-addressing hash table, so looking up a Chunk does not create any
+ * Objects. Chunks are looked up far more than they are added, so lookups are
+ * lock-free and read the current table, while adding a Chunk writes it into
+ * the table under a lock. The table is only copied when it grows, and Chunks
+ * are never removed, so a lookup never sees a slot being emptied.
+ *
+ * @author Alston
+ * @version RTM
+ */
+public class ChunkMap implements Iterable<Chunk> {
+
+    private static final int INITIAL_CAPACITY = 64; //Must be a power of 2
+    private volatile Table table; //The current table; replaced only when it grows
+    private volatile int size; //The amount of Chunks in the map
+
+    /**
+     * The arrays of the hash table. The key of a slot is written before it's
+     * Chunk, so a lookup that sees the Chunk also sees the key.
+     */
+    private static class Table {
+
+        private final long[] keys; //The packed coordinates of the Chunks
+        private final AtomicReferenceArray<Chunk> chunks; //The Chunks; null for empty slots
+
+        /**
+         * Creates a new empty table.
+         *
+         * @param capacity The amount of slots; must be a power of 2
+         */
+        Table(int capacity) {
+            keys = new long[capacity];
+            chunks = new AtomicReferenceArray<Chunk>(capacity);
+        }
+
+        /**
+         * Puts the Chunk in the first free slot for the key, or replaces the
+         * Chunk with the same key.
+         *
+         * @param key The packed coordinates of the Chunk
+         * @param chunk The Chunk
+         */
+        void insert(long key, Chunk chunk) {
+            int mask = chunks.length() - 1;
+            int slot = hash(key) & mask;
+            while (chunks.get(slot) != null && keys[slot] != key) { //Linear probing
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            chunks.set(slot, chunk); //Publishes the key along with the Chunk
+        }
+    }
+
+    /**
+     * Creates a new empty ChunkMap.
+     */
+    public ChunkMap() {
+        table = new Table(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Packs the coordinates of a Chunk into a single long.
+     *
+     * @param x The x coordinate of the Chunk
+     * @param y The y coordinate of the Chunk
+     * @return The key for the coordinates
+     */
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Mixes the bits of the key so that Chunks beside each other end up far
+     * apart in the table.
+     *
+     * @param key The packed coordinates
+     * @return The hash of the key
+     */
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    /**
+     * Gets the Chunk at the given coordinates without creating any Objects.
+     *
+     * @param x The x coordinate of the Chunk
+     * @param y The y coordinate of the Chunk
+     * @return The Chunk, or null if it does not exist
+     */
+    public Chunk get(int x, int y) {
+        Table current = table; //Only reads the field once so the table does not change in the middle
+        long key = pack(x, y);
+        int mask = current.chunks.length() - 1;
+        int slot = hash(key) & mask;
+        Chunk chunk;
+        while ((chunk = current.chunks.get(slot)) != null) {
+            if (current.keys[slot] == key) {
+                return chunk;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Maps the Chunk to the given coordinates, replacing any Chunk that was
+     * there. The Chunk is written into the current table, which is only
+     * copied into a bigger one when it would become more than half full.
+     *
+     * @param x The x coordinate of the Chunk
+     * @param y The y coordinate of the Chunk
+     * @param chunk The Chunk
+     */
+    public synchronized void put(int x, int y, Chunk chunk) {
+        Table current = table;
+        boolean adding = get(x, y) == null;
+        if (adding && (size + 1) * 2 > current.chunks.length()) { //Keeps it at most half full so the probes stay short
+            Table newTable = new Table(current.chunks.length() * 2);
+            for (int i = 0; i < current.chunks.length(); i++) {
+                Chunk existing = current.chunks.get(i);
+                if (existing != null) {
+                    newTable.insert(current.keys[i], existing);
+                }
+            }
+            table = newTable;
+            current = newTable;
+        }
+        current.insert(pack(x, y), chunk);
+        if (adding) {
+            size++;
+        }
+    }
+
+    /**
+     *
+     * @return The amount of Chunks in the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Iterates thru the Chunks that were in the map when this was called, and
+     * possibly some that were added while iterating.
+     *
+     * @return An Iterator of the Chunks
+     */
+    public Iterator<Chunk> iterator() {
+        final Table current = table;
+        return new Iterator<Chunk>() {
+            private int slot = findNext(0);
+
+            private int findNext(int start) {
+                while (start < current.chunks.length() && current.chunks.get(start) == null) {
+                    start++;
+                }
+                return start;
+            }
+
+            public boolean hasNext() {
+                return slot < current.chunks.length();
+            }
+
+            public Chunk next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Chunk chunk = current.chunks.get(slot); //Never emptied once it is found
+                slot = findNext(slot + 1);
+                return chunk;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
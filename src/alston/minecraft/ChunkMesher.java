@@ -0,0 +1,315 @@
+package alston.minecraft;
+
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.util.BufferUtils;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Turns the types of the Blocks in a Chunk into a single combined Mesh instead
+ * of a Geometry for every Block. Only the faces that are beside a transparent
+ * Block are created, and faces that are on the same plane, of the same type and
+ * at the same light levels are greedily merged into bigger rectangles. The sky
+ * light and block light levels are kept separately in the vertex colors, so the
+ * time of day is applied by the Material without building the Mesh again. Every
+ * type uses the same Material, with the type picking the layer of the texture
+ * array, so a whole Chunk is rendered in one draw call.
+ *
+ * @author Alston
+ * @version RTM
+ */
+public class ChunkMesher {
+
+    /**
+     * Does nothing; only exists to prevent instances of this to be created.
+     */
+    private ChunkMesher() {
+    }
+
+    /**
+     * Creates a Node containing the Geometry of all the faces showing in the
+     * given Chunk.
+     *
+     * @param chunk The Chunk to create the Mesh of
+     * @return The Node containing the Geometry, which is empty if no faces are
+     * showing
+     */
+    public static Node createMeshNode(Chunk chunk) {
+        //Every Block at or above the top of the highest section with Blocks in it is air, so it can be skipped
+        int[] dimensions = {Main.MAX_BLOCKS, chunk.getHighestSectionTop(), Main.MAX_BLOCKS};
+        int[] types = copyTypes(chunk, dimensions[1]);
+        MeshBuilder builder = new MeshBuilder();
+        int[] position = new int[3];
+        int[] neighbour = new int[3];
+        for (int axis = 0; axis < 3; axis++) { //X, Y then Z
+            //The 2 axes of the plane of the faces
+            int u = (axis + 1) % 3;
+            int v = (axis + 2) % 3;
+            int[] maskTypes = new int[dimensions[u] * dimensions[v]];
+            int[] maskLights = new int[dimensions[u] * dimensions[v]];
+            for (int side = -1; side <= 1; side += 2) { //The faces pointing towards negative, then positive
+                for (position[axis] = 0; position[axis] < dimensions[axis]; position[axis]++) {
+                    //Finds all the faces showing on this plane
+                    int n = 0;
+                    for (position[v] = 0; position[v] < dimensions[v]; position[v]++) {
+                        for (position[u] = 0; position[u] < dimensions[u]; position[u]++) {
+                            int type = types[getPaddedIndex(position[0], position[1], position[2])];
+                            maskTypes[n] = Item.NAN;
+                            if (!Block.isTransparent(type)) { //Transparent Blocks are not cubes
+                                neighbour[0] = position[0];
+                                neighbour[1] = position[1];
+                                neighbour[2] = position[2];
+                                neighbour[axis] += side;
+                                if (isFaceShowing(types, neighbour)) {
+                                    maskTypes[n] = type;
+                                    maskLights[n] = chunk.getLightLevel(position[0], position[1], position[2], Light.SKY_LIGHT)
+                                            | chunk.getLightLevel(position[0], position[1], position[2], Light.BLOCK_LIGHT) << 4;
+                                }
+                            }
+                            n++;
+                        }
+                    }
+                    //Merges the faces into rectangles
+                    n = 0;
+                    for (int j = 0; j < dimensions[v]; j++) {
+                        int i = 0;
+                        while (i < dimensions[u]) {
+                            int type = maskTypes[n];
+                            if (type == Item.NAN) { //No face here
+                                i++;
+                                n++;
+                                continue;
+                            }
+                            int light = maskLights[n];
+                            int width = 1;
+                            while (i + width < dimensions[u] && maskTypes[n + width] == type && maskLights[n + width] == light) {
+                                width++;
+                            }
+                            int height = 1;
+                            boolean canGrow = true;
+                            while (canGrow && j + height < dimensions[v]) { //Grows the rectangle as long as the entire next row matches
+                                for (int k = 0; k < width; k++) {
+                                    int next = n + k + height * dimensions[u];
+                                    if (maskTypes[next] != type || maskLights[next] != light) {
+                                        canGrow = false;
+                                        break;
+                                    }
+                                }
+                                if (canGrow) {
+                                    height++;
+                                }
+                            }
+                            builder.addQuad(chunk, type, axis, side, position[axis], i, j, width, height, light);
+                            for (int l = 0; l < height; l++) { //Removes the merged faces
+                                for (int k = 0; k < width; k++) {
+                                    maskTypes[n + k + l * dimensions[u]] = Item.NAN;
+                                }
+                            }
+                            i += width;
+                            n += width;
+                        }
+                    }
+                }
+            }
+        }
+        Node meshNode = new Node("Chunk Mesh");
+        if (builder.vertexCount > 0) { //A Geometry cannot have an empty Mesh
+            Geometry geometry = new Geometry("Chunk Mesh", builder.build());
+            geometry.setMaterial(Main.blockMaterial);
+            meshNode.attachChild(geometry);
+        }
+        return meshNode;
+    } //End of createMeshNode
+
+    /**
+     * Copies the types of the Chunk into an array that also includes the
+     * Blocks bordering it in the X and Z axis, so the faces can be checked
+     * without going thru the surrounding Chunks every time. Sections made of a
+     * single type are filled in without reading every Block.
+     *
+     * @param chunk The Chunk to copy
+     * @param height The Y coordinate that every Block at or above is air
+     * @return The types, with Item.NAN for Blocks of Chunks that do not exist
+     */
+    private static int[] copyTypes(Chunk chunk, int height) {
+        int[] types = new int[(Main.MAX_BLOCKS + 2) * Main.MAX_BLOCKS_Y * (Main.MAX_BLOCKS + 2)]; //Air by default
+        for (int j = 0; j <= height && j < Main.MAX_BLOCKS_Y; j++) { //Includes the layer above for the faces pointing up
+            int uniformType = chunk.getSection(j / ChunkSection.HEIGHT).getUniformType();
+            for (int k = -1; k <= Main.MAX_BLOCKS; k++) {
+                for (int i = -1; i <= Main.MAX_BLOCKS; i++) {
+                    if (uniformType != Item.NAN && i >= 0 && i < Main.MAX_BLOCKS && k >= 0 && k < Main.MAX_BLOCKS) {
+                        types[getPaddedIndex(i, j, k)] = uniformType;
+                    } else {
+                        types[getPaddedIndex(i, j, k)] = chunk.getType(i, j, k);
+                    }
+                }
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Gets the index of the given coordinates in the array made by
+     * copyTypes().
+     *
+     * @param x X coordinate within the Chunk (from -1 to MAX_BLOCKS)
+     * @param y Y coordinate within the Chunk
+     * @param z Z coordinate within the Chunk (from -1 to MAX_BLOCKS)
+     * @return The index in the array
+     */
+    private static int getPaddedIndex(int x, int y, int z) {
+        return (y * (Main.MAX_BLOCKS + 2) + z + 1) * (Main.MAX_BLOCKS + 2) + x + 1;
+    }
+
+    /**
+     * Checks if the face towards the given Block can be seen.
+     *
+     * @param types The types made by copyTypes()
+     * @param neighbour The coordinates of the Block that the face is towards
+     * @return If the Block there is transparent or is above the map
+     */
+    private static boolean isFaceShowing(int[] types, int[] neighbour) {
+        if (neighbour[1] < 0) { //Below the bedrock
+            return false;
+        } else if (neighbour[1] >= Main.MAX_BLOCKS_Y) { //Above the map
+            return true;
+        }
+        int type = types[getPaddedIndex(neighbour[0], neighbour[1], neighbour[2])];
+        return type != Item.NAN && Block.isTransparent(type);
+    }
+
+    /**
+     * Collects the vertices of the faces and creates the Mesh from them.
+     */
+    private static class MeshBuilder {
+
+        private float[] positions = new float[48];
+        private float[] normals = new float[48];
+        private float[] texCoords = new float[48];
+        private float[] colors = new float[64];
+        private int[] indices = new int[24];
+        private int vertexCount;
+        private int indexCount;
+
+        /**
+         * Adds a rectangle of faces.
+         *
+         * @param chunk The Chunk the faces belong to
+         * @param type The type of the Blocks of the faces
+         * @param axis The axis the faces are pointing in (0 = X, 1 = Y, 2 = Z)
+         * @param side -1 if the faces point towards negative, 1 otherwise
+         * @param layer The coordinate of the Blocks on the axis
+         * @param i The first coordinate on the 1st axis of the plane
+         * @param j The first coordinate on the 2nd axis of the plane
+         * @param width The amount of Blocks on the 1st axis of the plane
+         * @param height The amount of Blocks on the 2nd axis of the plane
+         * @param light The sky light level of the faces, with the block light
+         * level in the next 4 bits
+         */
+        void addQuad(Chunk chunk, int type, int axis, int side, int layer, int i, int j, int width, int height, int light) {
+            ensureCapacity();
+            int u = (axis + 1) % 3;
+            int v = (axis + 2) % 3;
+            int[] edge = new int[3]; //Coordinates of the corner along the edges of the Blocks
+            edge[axis] = side > 0 ? layer + 1 : layer;
+            for (int corner = 0; corner < 4; corner++) { //Counter clockwise when looking from the positive side
+                edge[u] = corner == 1 || corner == 2 ? i + width : i;
+                edge[v] = corner >= 2 ? j + height : j;
+                int vertex = vertexCount + corner;
+                //Blocks are centered on their coordinates
+                positions[vertex * 3] = edge[0] - 0.5f + chunk.getX() * Main.MAX_BLOCKS;
+                positions[vertex * 3 + 1] = edge[1] - 0.5f;
+                positions[vertex * 3 + 2] = edge[2] - 0.5f + chunk.getY() * Main.MAX_BLOCKS;
+                normals[vertex * 3] = axis == 0 ? side : 0;
+                normals[vertex * 3 + 1] = axis == 1 ? side : 0;
+                normals[vertex * 3 + 2] = axis == 2 ? side : 0;
+                //Texture repeats once per Block, upright on the sides
+                if (axis == 0) {
+                    texCoords[vertex * 3] = side > 0 ? -edge[2] : edge[2];
+                    texCoords[vertex * 3 + 1] = edge[1];
+                } else if (axis == 1) {
+                    texCoords[vertex * 3] = edge[0];
+                    texCoords[vertex * 3 + 1] = edge[2];
+                } else {
+                    texCoords[vertex * 3] = side > 0 ? edge[0] : -edge[0];
+                    texCoords[vertex * 3 + 1] = edge[1];
+                }
+                texCoords[vertex * 3 + 2] = type; //The layer of the texture array
+                //The Material works out the brightness from the levels and the time of day
+                colors[vertex * 4] = light & 0xF;
+                colors[vertex * 4 + 1] = light >> 4;
+                colors[vertex * 4 + 2] = 0;
+                colors[vertex * 4 + 3] = 1;
+            }
+            //2 triangles facing outwards
+            indices[indexCount] = vertexCount;
+            indices[indexCount + 1] = vertexCount + (side > 0 ? 1 : 2);
+            indices[indexCount + 2] = vertexCount + (side > 0 ? 2 : 1);
+            indices[indexCount + 3] = vertexCount;
+            indices[indexCount + 4] = vertexCount + (side > 0 ? 2 : 3);
+            indices[indexCount + 5] = vertexCount + (side > 0 ? 3 : 2);
+            vertexCount += 4;
+            indexCount += 6;
+        }
+
+        /**
+         * Doubles the arrays if another rectangle will not fit.
+         */
+        private void ensureCapacity() {
+            if ((vertexCount + 4) * 3 <= positions.length) {
+                return;
+            }
+            positions = grow(positions);
+            normals = grow(normals);
+            texCoords = grow(texCoords);
+            colors = grow(colors);
+            int[] newIndices = new int[indices.length * 2];
+            System.arraycopy(indices, 0, newIndices, 0, indexCount);
+            indices = newIndices;
+        }
+
+        /**
+         *
+         * @param array The array to grow
+         * @return A copy of the array with twice the length
+         */
+        private static float[] grow(float[] array) {
+            float[] grown = new float[array.length * 2];
+            System.arraycopy(array, 0, grown, 0, array.length);
+            return grown;
+        }
+
+        /**
+         *
+         * @return A Mesh made of all the rectangles that were added
+         */
+        Mesh build() {
+            Mesh mesh = new Mesh();
+            mesh.setBuffer(VertexBuffer.Type.Position, 3, createBuffer(positions, vertexCount * 3));
+            mesh.setBuffer(VertexBuffer.Type.Normal, 3, createBuffer(normals, vertexCount * 3));
+            mesh.setBuffer(VertexBuffer.Type.TexCoord, 3, createBuffer(texCoords, vertexCount * 3));
+            mesh.setBuffer(VertexBuffer.Type.Color, 4, createBuffer(colors, vertexCount * 4));
+            IntBuffer indexBuffer = BufferUtils.createIntBuffer(indexCount);
+            indexBuffer.put(indices, 0, indexCount).flip();
+            mesh.setBuffer(VertexBuffer.Type.Index, 3, indexBuffer);
+            mesh.updateBound();
+            mesh.updateCounts();
+            return mesh;
+        }
+
+        /**
+         *
+         * @param array The array with the values
+         * @param length The amount of values used in the array
+         * @return A buffer containing the used values
+         */
+        private static FloatBuffer createBuffer(float[] array, int length) {
+            FloatBuffer buffer = BufferUtils.createFloatBuffer(length);
+            buffer.put(array, 0, length).flip();
+            return buffer;
+        }
+    }
+}
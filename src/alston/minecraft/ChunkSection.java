@@ -0,0 +1,187 @@
+package alston.minecraft;
+
+/**
+ * A horizontal slice of a Chunk that is HEIGHT Blocks high. Splitting a Chunk
+ * into Sections allows it to keep track of which parts of it are entirely air
+ * or made of a single type of Block, so that meshing, lighting and scanning
+ * for the surface can skip or fast-path them. A Section that is all air only
+ * holds a single palette entry and no light levels, so the upper half of a
+ * Chunk takes up almost no memory. Both light levels of a Block are packed
+ * into a single byte (sky light in the low 4 bits, block light in the high 4
+ * bits), so the light of a whole Chunk fits in 64 KB.
+ *
+ * @author Alston
+ * @version RTM
+ */
+public class ChunkSection {
+
+    /**
+     * The amount of Blocks a Section is in the Y axis.
+     */
+    public static final int HEIGHT = 16;
+    private BlockStorage types; //The types of the blocks in the section
+    private byte[] lightLevels; //The packed light levels of every block; null if they are all dark
+    private byte[] oldLightLevels; //The light levels from before they were reset, until the relight is done
+    private volatile boolean relighting; //If the light levels were reset and are being calculated again
+    private int nonAirCount; //The amount of blocks that are not air
+
+    /**
+     * Creates a new Section that is entirely air.
+     */
+    public ChunkSection() {
+        types = new BlockStorage(Main.MAX_BLOCKS * Main.MAX_BLOCKS * HEIGHT, Item.AIR);
+    }
+
+    /**
+     *
+     * @param index The index of the Block within the Section
+     * @return The type of the Block
+     */
+    public int getType(int index) {
+        return types.get(index);
+    }
+
+    /**
+     * Changes the type of the Block at the given index, and keeps track of the
+     * amount of Blocks that are not air.
+     *
+     * @param index The index of the Block within the Section
+     * @param type The new type of the Block
+     */
+    public synchronized void setType(int index, int type) {
+        int oldType = types.get(index);
+        if (oldType == type) {
+            return;
+        }
+        if (oldType == Item.AIR) {
+            nonAirCount++;
+        } else if (type == Item.AIR) {
+            nonAirCount--;
+        }
+        if (nonAirCount == 0) { //Frees up the packed array along with the types that are no longer used
+            types.fill(Item.AIR);
+        } else {
+            types.set(index, type);
+        }
+    }
+
+    /**
+     *
+     * @return If every Block in the Section is air
+     */
+    public boolean isEmpty() {
+        return nonAirCount == 0;
+    }
+
+    /**
+     *
+     * @return The type of every Block in the Section if they are all the same,
+     * or Item.NAN if they are not
+     */
+    public int getUniformType() {
+        return types.getBitsPerEntry() == 0 ? types.get(0) : Item.NAN;
+    }
+
+    /**
+     *
+     * @param index The index of the Block within the Section
+     * @return The brighter of the light levels of the Block
+     */
+    public int getLightLevel(int index) {
+        byte[] levels = lightLevels; //Only reads the field once in case it gets reset in the meantime
+        if (levels == null) {
+            return 0;
+        }
+        return Math.max(levels[index] & 0xF, (levels[index] >> 4) & 0xF);
+    }
+
+    /**
+     *
+     * @param index The index of the Block within the Section
+     * @param channel Light.SKY_LIGHT or Light.BLOCK_LIGHT
+     * @return The light level of the Block in the channel
+     */
+    public int getLightLevel(int index, int channel) {
+        byte[] levels = lightLevels;
+        return levels == null ? 0 : (levels[index] >> (channel * 4)) & 0xF;
+    }
+
+    /**
+     * Changes the light level of the Block at the given index in one channel;
+     * the light levels are only allocated once a Block is lit.
+     *
+     * @param index The index of the Block within the Section
+     * @param channel Light.SKY_LIGHT or Light.BLOCK_LIGHT
+     * @param lightLevel The new light level of the Block, from 0 to
+     * Light.MAX_LEVEL
+     * @return If the light level changed
+     */
+    public boolean setLightLevel(int index, int channel, int lightLevel) {
+        byte[] levels = lightLevels;
+        if (levels == null) {
+            if (lightLevel == 0) { //Already at that level
+                return false;
+            }
+            levels = new byte[types.getSize()];
+            lightLevels = levels;
+        }
+        int shift = channel * 4;
+        int packed = levels[index];
+        if (((packed >> shift) & 0xF) == lightLevel) {
+            return false;
+        }
+        levels[index] = (byte) ((packed & ~(0xF << shift)) | (lightLevel << shift));
+        return true;
+    }
+
+    /**
+     * Sets every Block in the Section back to no light, keeping the old light
+     * levels until finishRelight() so it can tell if they changed.
+     */
+    public void resetLightLevels() {
+        oldLightLevels = lightLevels;
+        lightLevels = null;
+        relighting = true;
+    }
+
+    /**
+     * Ends the relight started by resetLightLevels() once the light levels are
+     * calculated again.
+     *
+     * @return If any light level is different from before they were reset
+     */
+    public boolean finishRelight() {
+        if (!relighting) { //Was not reset
+            return false;
+        }
+        byte[] oldLevels = oldLightLevels, levels = lightLevels;
+        oldLightLevels = null;
+        relighting = false;
+        if (oldLevels == null && levels == null) { //Dark before and after
+            return false;
+        }
+        for (int i = 0; i < types.getSize(); i++) { //A missing array is all dark
+            if ((oldLevels == null ? 0 : oldLevels[i]) != (levels == null ? 0 : levels[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     *
+     * @return If the light levels were reset and are being calculated again
+     */
+    public boolean isRelighting() {
+        return relighting;
+    }
+
+    /**
+     *
+     * @return The approximate amount of bytes the Section takes up in memory
+     */
+    public int getMemoryUsage() {
+        byte[] levels = lightLevels;
+        return types.getMemoryUsage() + (levels == null ? 0 : levels.length);
+    }
+}
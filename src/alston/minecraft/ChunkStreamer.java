@@ -0,0 +1,270 @@
+package alston.minecraft;
+
+import com.jme3.math.Vector3f;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps every Chunk within the render distance of the player loaded, in a
+ * square ring around the Chunk the player is on. Whenever the player moves to
+ * another Chunk (in any direction, as far as they want) or the render distance
+ * changes, the Chunks that should now be loaded but are not are found by
+ * taking the difference between the new window and the Chunks that are
+ * loaded, and scheduled to be loaded with the closest first. Every Chunk is
+ * loaded as it's own job on a pool of worker threads, so the Chunks around the
+ * player are generated at the same time rather than one after another; only a
+ * few jobs are handed to the pool at once, and the jobs that are still waiting
+ * are dropped if their Chunk goes out of range before they start. Chunks are only
+ * unloaded once they are more than 1 Chunk past the render distance, so going
+ * back and forth over the edge of a Chunk does not keep loading and unloading
+ * the same Chunks.
+ *
+ * @author Alston
+ * @version RTM
+ */
+public class ChunkStreamer {
+
+    /**
+     * The render distance used until it is changed.
+     */
+    public static final int DEFAULT_RENDER_DISTANCE = 2;
+    /**
+     * The highest render distance that can be set.
+     */
+    public static final int MAX_RENDER_DISTANCE = 8;
+    private final Game game;
+    private final ExecutorService workers; //Threads that only load and unload chunks
+    private final int maxJobsRunning; //The most jobs that can be handed to the workers at once
+    private final HashSet<Long> loadedChunks; //Packed coordinates of the chunks that are loaded or will be once the jobs are done
+    private final HashMap<Long, ChunkJob> waitingJobs; //Jobs that have not been handed to the workers, by packed coordinates
+    private final ConcurrentHashMap<Long, ChunkJob> runningJobs; //Jobs that were handed to the workers and are not done
+    private PriorityQueue<ChunkJob> jobQueue; //The waiting jobs, closest to the player first
+    private int renderDistance;
+    private int centerX, centerY; //The chunk the window is around
+    private boolean windowChanged; //If the window has to be checked again
+
+    /**
+     * Loads or unloads a single Chunk.
+     */
+    private class ChunkJob implements Runnable {
+
+        private final int x, y; //Coordinates of the chunk
+        private final boolean load; //If the chunk is being loaded (or else unloaded)
+
+        /**
+         *
+         * @param x The x coordinate of the Chunk
+         * @param y The y coordinate of the Chunk
+         * @param load True to load the Chunk, false to unload it
+         */
+        ChunkJob(int x, int y, boolean load) {
+            this.x = x;
+            this.y = y;
+            this.load = load;
+        }
+
+        public void run() {
+            try {
+                Chunk chunk = game.getChunk(x, y);
+                if (load) {
+                    if (chunk == null) { //Not in memory; reads it if it was saved
+                        chunk = game.loadChunk(x, y);
+                    }
+                    if (chunk == null) { //The player has never edited this chunk before
+                        chunk = new Chunk(x, y, game.getSeed());
+                        game.add(chunk, x, y);
+                    } else if (!chunk.isLoaded()) { //Player has been to this chunk before
+                        chunk.restore();
+                    }
+                } else if (chunk != null && chunk.isLoaded()) {
+                    chunk.destroy();
+                }
+            } catch (Exception ex) { //Keeps the job from being stuck as running
+                Logger.getLogger(ChunkStreamer.class.getName()).log(Level.SEVERE, null, ex);
+            } finally {
+                runningJobs.remove(getKey());
+            }
+        }
+
+        /**
+         *
+         * @return The packed coordinates of the Chunk
+         */
+        long getKey() {
+            return ChunkMap.pack(x, y);
+        }
+
+        /**
+         *
+         * @return The squared distance from the Chunk to the center of the
+         * window, in Chunks
+         */
+        int getDistanceSquared() {
+            return (x - centerX) * (x - centerX) + (y - centerY) * (y - centerY);
+        }
+    }
+
+    /**
+     * Orders the jobs with the loads before the unloads, and the loads by
+     * their distance to the player.
+     */
+    private final Comparator<ChunkJob> jobComparator = new Comparator<ChunkJob>() {
+        public int compare(ChunkJob job1, ChunkJob job2) {
+            if (job1.load != job2.load) { //Unloading can wait
+                return job1.load ? -1 : 1;
+            }
+            return job1.getDistanceSquared() - job2.getDistanceSquared();
+        }
+    };
+
+    /**
+     * Creates a new streamer for the Game, starting with the Chunks that are
+     * already loaded.
+     *
+     * @param game The Game to load the Chunks of
+     * @param renderDistance The amount of Chunks loaded on each side of the
+     * Chunk the player is on
+     */
+    public ChunkStreamer(Game game, int renderDistance) {
+        this.game = game;
+        this.renderDistance = renderDistance;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1); //Leaves a core for the Main thread
+        workers = Executors.newFixedThreadPool(threads);
+        maxJobsRunning = threads;
+        loadedChunks = new HashSet<Long>();
+        waitingJobs = new HashMap<Long, ChunkJob>();
+        runningJobs = new ConcurrentHashMap<Long, ChunkJob>();
+        jobQueue = new PriorityQueue<ChunkJob>(11, jobComparator);
+        Iterator<Chunk> iterator = game.getLoadedChunks().iterator();
+        while (iterator.hasNext()) {
+            Chunk chunk = iterator.next();
+            loadedChunks.add(ChunkMap.pack(chunk.getX(), chunk.getY()));
+        }
+        centerX = game.getCurrentChunkX();
+        centerY = game.getCurrentChunkY();
+        windowChanged = true;
+    }
+
+    /**
+     * Checks if the player moved to another Chunk and schedules the Chunks to
+     * load and unload if they did, then hands the waiting jobs to the workers
+     * as the running ones finish. To be called every frame from the Main
+     * thread.
+     *
+     * @param playerLocation The location of the player in the world
+     * @return If the player moved to another Chunk
+     */
+    public boolean update(Vector3f playerLocation) {
+        int playerChunkX = Game.toChunkCoordinate((int) Math.floor(playerLocation.x + 0.5f)); //Blocks are centered on their coordinates
+        int playerChunkY = Game.toChunkCoordinate((int) Math.floor(playerLocation.z + 0.5f));
+        boolean moved = playerChunkX != centerX || playerChunkY != centerY;
+        if (moved) {
+            centerX = playerChunkX;
+            centerY = playerChunkY;
+            game.setCurrentChunkX(centerX);
+            game.setCurrentChunkY(centerY);
+            windowChanged = true;
+        }
+        if (windowChanged) {
+            scheduleJobs();
+            windowChanged = false;
+        }
+        startJobs();
+        return moved;
+    }
+
+    /**
+     * Finds the difference between the Chunks that should be loaded and the
+     * ones that are and queues the jobs to fix it. A waiting job that is no
+     * longer needed is dropped instead of queuing a job that undoes it, and
+     * the queue is reordered by the distance to the new center.
+     */
+    private void scheduleJobs() {
+        for (int i = -renderDistance; i <= renderDistance; i++) { //Chunks in the window that are not loaded
+            for (int j = -renderDistance; j <= renderDistance; j++) {
+                long key = ChunkMap.pack(centerX + i, centerY + j);
+                if (loadedChunks.add(key) && waitingJobs.remove(key) == null) { //Not waiting to be unloaded either
+                    waitingJobs.put(key, new ChunkJob(centerX + i, centerY + j, true));
+                }
+            }
+        }
+        Iterator<Long> iterator = loadedChunks.iterator();
+        while (iterator.hasNext()) { //Loaded chunks that are past the window by more than 1 chunk
+            long key = iterator.next();
+            int x = (int) (key >> 32), y = (int) key;
+            if (Math.abs(x - centerX) > renderDistance + 1 || Math.abs(y - centerY) > renderDistance + 1) {
+                iterator.remove();
+                if (waitingJobs.remove(key) == null) { //Cancels the load if it did not start yet
+                    waitingJobs.put(key, new ChunkJob(x, y, false));
+                }
+            }
+        }
+        jobQueue = new PriorityQueue<ChunkJob>(Math.max(11, waitingJobs.size()), jobComparator); //The distances changed
+        jobQueue.addAll(waitingJobs.values());
+    }
+
+    /**
+     * Hands the closest waiting jobs to the workers until there are
+     * maxJobsRunning jobs running. A job for a Chunk that already has a job
+     * running is held back so the two do not run at the same time.
+     */
+    private void startJobs() {
+        ArrayList<ChunkJob> heldBack = new ArrayList<ChunkJob>();
+        while (runningJobs.size() < maxJobsRunning && !jobQueue.isEmpty()) {
+            ChunkJob job = jobQueue.poll();
+            if (runningJobs.containsKey(job.getKey())) {
+                heldBack.add(job);
+                continue;
+            }
+            waitingJobs.remove(job.getKey());
+            runningJobs.put(job.getKey(), job);
+            workers.execute(job);
+        }
+        jobQueue.addAll(heldBack);
+    }
+
+    /**
+     * Stops the workers; the jobs that are running are allowed to finish.
+     */
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     *
+     * @return If every Chunk in the window has been loaded
+     */
+    public boolean isIdle() {
+        return jobQueue.isEmpty() && runningJobs.isEmpty();
+    }
+
+    /**
+     *
+     * @return The amount of Chunks loaded on each side of the Chunk the player
+     * is on
+     */
+    public int getRenderDistance() {
+        return renderDistance;
+    }
+
+    /**
+     * Changes the render distance; the Chunks are loaded or unloaded on the
+     * next update.
+     *
+     * @param renderDistance The new amount of Chunks loaded on each side of
+     * the Chunk the player is on, from 1 to MAX_RENDER_DISTANCE
+     */
+    public void setRenderDistance(int renderDistance) {
+        this.renderDistance = Math.max(1, Math.min(MAX_RENDER_DISTANCE, renderDistance));
+        windowChanged = true;
+    }
+}
@@ -0,0 +1,66 @@
+package alston.minecraft;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+/**
+ * States that the Object that implements this can compress the records of
+ * Chunks before they are written to a RegionFile, and decompress them after
+ * they are read. Every record is written with the id of the Compression used,
+ * so a world can be read no matter which one it was saved with.
+ *
+ * @author Alston
+ * @version RTM
+ */
+public interface Compression {
+
+    /**
+     * Writes the records as they are.
+     */
+    public static final Compression NONE = new Compression() {
+        public int getId() {
+            return 0;
+        }
+
+        public byte[] compress(byte[] data) {
+            return data;
+        }
+
+        public ByteBuffer decompress(ByteBuffer data) {
+            return data;
+        }
+    };
+    /**
+     * Makes the records as small as it can; used when the game is exited.
+     */
+    public static final Compression SMALLEST = new DeflateCompression(Deflater.BEST_COMPRESSION);
+    /**
+     * Spends the least time compressing; used when saving while the game is
+     * being played.
+     */
+    public static final Compression FASTEST = new DeflateCompression(Deflater.BEST_SPEED);
+
+    /**
+     *
+     * @return The id that is written with the records, from 0 to 255
+     */
+    public int getId();
+
+    /**
+     *
+     * @param data The record of a Chunk
+     * @return The compressed record
+     * @throws IOException Something went wrong while compressing
+     */
+    public byte[] compress(byte[] data) throws IOException;
+
+    /**
+     *
+     * @param data The compressed record of a Chunk, which can be a view of a
+     * mapped file
+     * @return The record
+     * @throws IOException The data is not compressed properly
+     */
+    public ByteBuffer decompress(ByteBuffer data) throws IOException;
+}
@@ -0,0 +1,78 @@
+package alston.minecraft;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the records of Chunks with the Deflate algorithm of the JDK. The
+ * level decides between the time spent compressing and how small the records
+ * become; records written at any level are decompressed the same way.
+ *
+ * @author Alston
+ * @version RTM
+ */
+public class DeflateCompression implements Compression {
+
+    private final int level; //From Deflater.BEST_SPEED to Deflater.BEST_COMPRESSION
+
+    /**
+     *
+     * @param level The level of compression, from Deflater.BEST_SPEED to
+     * Deflater.BEST_COMPRESSION
+     */
+    public DeflateCompression(int level) {
+        this.level = level;
+    }
+
+    public int getId() {
+        return 1;
+    }
+
+    public byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater(level);
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream output = new ByteArrayOutputStream(data.length / 2 + 16);
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            output.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end(); //Frees the native memory right away
+        return output.toByteArray();
+    }
+
+    public ByteBuffer decompress(ByteBuffer data) throws IOException {
+        byte[] input = new byte[data.remaining()]; //The Inflater can only read from an array
+        data.get(input);
+        Inflater inflater = new Inflater();
+        inflater.setInput(input);
+        ByteArrayOutputStream output = new ByteArrayOutputStream(input.length * 4);
+        byte[] buffer = new byte[4096];
+        try {
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) { //Ran out before the end
+                    throw new IOException("Chunk record is truncated");
+                }
+                output.write(buffer, 0, length);
+            }
+        } catch (DataFormatException ex) {
+            throw new IOException(ex);
+        } finally {
+            inflater.end();
+        }
+        return ByteBuffer.wrap(output.toByteArray());
+    }
+
+    /**
+     *
+     * @return The level of compression
+     */
+    public int getLevel() {
+        return level;
+    }
+}
@@ -5,10 +5,14 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -26,87 +30,55 @@ public final class Game implements Serializable {
     //Private constant used for Object serialization
     private static final long serialVersionUID = 3724124124812838L;
     //Fields
-    private HashMap<MapKey, Chunk> world; //Links to every chunk that is created; The Key Object is the MapKey inner class
+    private transient ChunkMap world; //Links to every chunk that is created, keyed by their packed coordinates; saved in region files
     private ArrayList<Item> droppedItems; //List of items that was discarded and have no parent, this keeps a refrence on Serialization
     private Player player;
     private CopyOnWriteArrayList<Mob> mobs;
     private InventoryBar inventoryBar;
+    private long seed; //The seed that the terrain of every chunk is generated from
     private int time; //Represents the time in the game
     private int currentChunkX, currentChunkY; //Records the current chunk where the player is on
-    private transient Future changeLightsFuture;
-    private transient Runnable changeChunkLights;
+    private transient Chunk[] nearbyChunks; //Direct-mapped cache of the 3x3 chunks around the player; slot is by coordinates mod 3
+    private transient volatile int generation; //Incremented whenever the inventory or time changes
+    private transient volatile int savedGeneration; //The generation that was last written to the level file
+    private transient volatile Vector3f savedLocation; //The location of the player when it was last written
 
     /**
-     * Used as an Object that will be used as a Key for the HashMap to keep
-     * track of which Chunk belongs to what coordinates.
+     * Creates a Game with a world generated from a random seed.
      */
-    class MapKey implements Serializable {
-
-        private int x, y; //Coordinates
-
-        /**
-         * Constructs a new mapKey with the given Chunk coordinates to be used
-         * for the HashMap.
-         *
-         * @param x The x coordinate of the Chunk
-         * @param y The y coordinate of the Chunk
-         */
-        public MapKey(int x, int y) {
-            this.x = x;
-            this.y = y;
-        }
-
-        @Override
-        public int hashCode() {
-            int hash = 1; //Initial hash value
-            //Adds additional values to hash based on the int variables multiplied by prime numbers
-            hash = hash + 7 * x;
-            hash = hash + 17 * y;
-            return hash;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (obj == null) { //Returns false if the parameter is a null refrence
-                return false;
-            }
-            if (getClass() != obj.getClass()) { //Ensures that the given Object is a MapKey
-                return false;
-            }
-            final MapKey other = (MapKey) obj; //Casts MapKey to the Object
-            //Ensures the parameters are equal
-            if (this.x != other.x) {
-                return false;
-            }
-            if (this.y != other.y) {
-                return false;
-            }
-            return true;
-        }
+    public Game() {
+        this(new Random().nextLong());
     }
 
     /**
      * Constructor for Game. Instantiates a new World, sets the player's
-     * location based on the world, and initiates values for all variables.
+     * location based on the world, and initiates values for all variables. The
+     * same seed always generates the same world.
+     *
+     * @param seed The seed of the world
      */
-    public Game() {
+    public Game(long seed) {
+        this.seed = seed;
         inventoryBar = new InventoryBar();
         player = new Player(inventoryBar); //Passes the refrence down so Item does not have to refrence this while constructing
         currentChunkX = 0;
         currentChunkY = 0;
-        world = new HashMap();
+        world = new ChunkMap();
+        nearbyChunks = new Chunk[9];
         droppedItems = new ArrayList<Item>();
         mobs = new CopyOnWriteArrayList();
-        //Creates chunks and adds to HashMap
+        //Creates chunks and adds to the ChunkMap
         for (int i = -1; i <= 1; i++) { //X dimension of the chunks array
             for (int j = -1; j <= 1; j++) { //Y dimention of the chunks array
-                Chunk chunk = new Chunk(i, j);
-                world.put(new MapKey(i, j), chunk);
+                Chunk chunk = new Chunk(i, j, seed);
+                world.put(i, j, chunk);
+                chunk.linkAdjacentChunks(this);
+                chunk.updateMesh(); //Was meshed before it was linked
+                chunk.updateAdjacentMeshes();
             }
         }
-        setupRunnable();
         setTime(8); //Starts at sunrise 
-        player.getControl().setPhysicsLocation(new Vector3f(0, ((Chunk) world.get(new MapKey(0, 0))).getSurfaceHeight(0, 0) + 2, 0));
+        player.getControl().setPhysicsLocation(new Vector3f(0, world.get(0, 0).getSurfaceHeight(0, 0) + 2, 0));
     }
 
     /**
@@ -119,53 +91,169 @@ public final class Game implements Serializable {
      */
     private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
         input.defaultReadObject();
-        setupRunnable();
+        world = new ChunkMap();
+        nearbyChunks = new Chunk[9]; //The chunks are loaded by loadSpawnChunks() once the Game is read
+    }
+
+    /**
+     * Gets the Chunk with the specified coordinates. The 3x3 Chunks around the
+     * player are first looked for in a small cache, where each Chunk can only
+     * be in the slot given by it's coordinates mod 3, and otherwise in the
+     * ChunkMap. Does not create any Objects.
+     *
+     * @param x The x coordinate of the Chunk
+     * @param y The y coordinate of the Chunk
+     * @return The Chunk with the specified coordinates, or null if it does not
+     * exist
+     */
+    public Chunk getChunk(int x, int y) {
+        int slot = ((x % 3 + 3) % 3) * 3 + (y % 3 + 3) % 3;
+        Chunk chunk = nearbyChunks[slot];
+        if (chunk != null && chunk.getX() == x && chunk.getY() == y) { //Cache hit
+            return chunk;
+        }
+        chunk = world.get(x, y);
+        if (chunk != null && Math.abs(x - currentChunkX) <= 1 && Math.abs(y - currentChunkY) <= 1) { //Around the player
+            nearbyChunks[slot] = chunk;
+        }
+        return chunk;
     }
 
     /**
-     * Sets up the runnable thread.
+     * Loads the 3x3 Chunks around the player after the Game is read, so the
+     * first frame can be shown; every other Chunk is loaded by the
+     * ChunkStreamer in the background once the game starts. The saved Chunks
+     * are read in parallel; the Chunks that were never saved are generated,
+     * and every Chunk is restored, on the calling Thread, since adding a Chunk
+     * to the scene from another Thread waits on the render Thread.
      */
-    private void setupRunnable() {
-        changeChunkLights = new Runnable() { //Changes the lights of all the chunks
-            public void run() {
-                Iterator<Chunk> iterator = world.values().iterator();
-                float factor = (float) Math.sin((time / 24f * Math.PI));
-                while (iterator.hasNext()) {
-                    Chunk chunk = iterator.next();
-                    chunk.getSunlight().factorIntensity(factor);
-                }
+    public void loadSpawnChunks() {
+        ExecutorService loaders = Executors.newFixedThreadPool(Math.min(9, Math.max(1, Runtime.getRuntime().availableProcessors())));
+        ArrayList<Future<Chunk>> futures = new ArrayList<Future<Chunk>>();
+        for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+                final int x = currentChunkX + i, y = currentChunkY + j;
+                futures.add(loaders.submit(new Callable<Chunk>() {
+                    public Chunk call() {
+                        return loadChunk(x, y); //Only reads it; nothing is added to the scene
+                    }
+                }));
             }
-        };
+        }
+        loaders.shutdown();
+        for (int i = 0; i < futures.size(); i++) { //Waits for all of them, since they are linked to each other
+            int x = currentChunkX + i / 3 - 1, y = currentChunkY + i % 3 - 1;
+            Chunk chunk = null;
+            try {
+                chunk = futures.get(i).get();
+            } catch (InterruptedException ex) {
+                Logger.getLogger(Game.class.getName()).log(Level.SEVERE, null, ex);
+            } catch (ExecutionException ex) {
+                Logger.getLogger(Game.class.getName()).log(Level.SEVERE, null, ex);
+            }
+            if (chunk == null) { //Was not edited, so it was never saved
+                chunk = new Chunk(x, y, seed);
+                world.put(x, y, chunk);
+                chunk.linkAdjacentChunks(this);
+                chunk.updateMesh(); //Was meshed before it was linked
+                chunk.updateAdjacentMeshes();
+            } else {
+                chunk.restoreFromFile(this);
+            }
+        }
     }
 
     /**
-     * Gets the Chunk with the specified coordinates by creating a new MapKey
-     * with the parameters, and using it as a Key in the HashMap to get the
-     * Chunk.
+     * Reads the Chunk with the specified coordinates from the region files and
+     * adds it to the ChunkMap, set up but not loaded.
      *
      * @param x The x coordinate of the Chunk
      * @param y The y coordinate of the Chunk
-     * @return The Chunk obtained from the HashMap with the specified
-     * coordinates, or null if it does not exist
+     * @return The Chunk, or null if it was never saved
      */
-    public Chunk getChunk(int x, int y) {
-        return (Chunk) world.get(new MapKey(x, y));
+    public Chunk loadChunk(int x, int y) {
+        Chunk chunk = null;
+        try {
+            chunk = Main.worldStorage.readChunk(x, y);
+        } catch (IOException ex) {
+            Logger.getLogger(Game.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        if (chunk == null) {
+            return null;
+        }
+        chunk.setupFromFile(seed);
+        world.put(x, y, chunk);
+        return chunk;
     }
 
     /**
-     * Maps the given Chunk to the specified coordinates by creating a new
-     * MapKey with the parameters and using it as a Key to put the Chunk in the
-     * HashMap. Note that there should only be one Chunk that corrosponds to any
-     * single Key (and therefore 1 Chunk for each x and y coordinates
-     * combination).
+     * Gets the type of the Block at the given world coordinates without
+     * creating any Objects.
+     *
+     * @param x The x coordinate of the Block in the world
+     * @param y The y coordinate of the Block in the world
+     * @param z The z coordinate of the Block in the world
+     * @return The type of the Block, or Item.NAN if it is outside the map or
+     * in a Chunk that does not exist
+     */
+    public int getTypeAt(int x, int y, int z) {
+        Chunk chunk = getChunk(toChunkCoordinate(x), toChunkCoordinate(z));
+        if (chunk == null) {
+            return Item.NAN;
+        }
+        return chunk.getType(x - chunk.getX() * Main.MAX_BLOCKS, y, z - chunk.getY() * Main.MAX_BLOCKS);
+    }
+
+    /**
+     * Gets the Block at the given world coordinates.
+     *
+     * @param x The x coordinate of the Block in the world
+     * @param y The y coordinate of the Block in the world
+     * @param z The z coordinate of the Block in the world
+     * @return The Block, or null if it is outside the map or in a Chunk that
+     * does not exist
+     */
+    public Block getBlockOrNull(int x, int y, int z) {
+        Chunk chunk = getChunk(toChunkCoordinate(x), toChunkCoordinate(z));
+        if (chunk == null) {
+            return null;
+        }
+        return chunk.getBlock(x - chunk.getX() * Main.MAX_BLOCKS, y, z - chunk.getY() * Main.MAX_BLOCKS);
+    }
+
+    /**
+     *
+     * @param coordinate A coordinate of a Block in the world on the X or Z
+     * axis
+     * @return The coordinate of the Chunk that the Block is in
+     */
+    public static int toChunkCoordinate(int coordinate) {
+        return coordinate >= 0 ? coordinate / Main.MAX_BLOCKS : (coordinate + 1) / Main.MAX_BLOCKS - 1;
+    }
+
+    /**
+     * Maps the given Chunk to the specified coordinates in the ChunkMap. Note
+     * that there should only be one Chunk that corrosponds to any single pair
+     * of coordinates.
      *
      * @param chunk The Chunk to be mapped
      * @param x The x coordinate of the Chunk
      * @param y The y coodinate of the Chunk
      */
     public void add(Chunk chunk, int x, int y) {
-        world.put(new MapKey(x, y), chunk);
-        chunk.getSunlight().factorIntensity((float) Math.sin((time / 24f * Math.PI))); //Sets the appropriate light level
+        world.put(x, y, chunk);
+        chunk.linkAdjacentChunks(this);
+        Light.updateChunk(chunk); //Lights up the new Chunk and the edges of the Chunks beside it
+        chunk.updateMesh(); //Was meshed before it was lit and linked
+        chunk.updateAdjacentMeshes();
+    }
+
+    /**
+     *
+     * @return The seed that the terrain is generated from
+     */
+    public long getSeed() {
+        return seed;
     }
 
     /**
@@ -184,14 +272,23 @@ public final class Game implements Serializable {
         return currentChunkY;
     }
 
+    /**
+     * Gets every Chunk in the ChunkMap, loaded or not.
+     *
+     * @return An Iterator of the Chunks
+     */
+    public Iterator<Chunk> getChunks() {
+        return world.iterator();
+    }
+
     /**
      * Gets all the currently loaded Chunks.
      *
      * @return A List containing all the existing Chunks.
      */
-    public LinkedList getLoadedChunks() {
-        Iterator<Chunk> iterator = world.values().iterator();
-        LinkedList list = new LinkedList();
+    public LinkedList<Chunk> getLoadedChunks() {
+        Iterator<Chunk> iterator = world.iterator();
+        LinkedList<Chunk> list = new LinkedList<Chunk>();
         while (iterator.hasNext()) {
             Chunk chunk = iterator.next();
             if (chunk.isLoaded()) {
@@ -259,29 +356,54 @@ public final class Game implements Serializable {
     }
 
     /**
+     * Changes the game time. The light of the Chunks does not have to change;
+     * the sky light is dimmed by Main when it is rendered.
      *
      * @param time A integer between 0 and 23 that represents the game time,
      * with 0 as midnight, 6 as sunrise, 12 as noon and 18 as sunset
      */
     public void setTime(int time) {
-        this.time = time;
-        if (changeLightsFuture == null) {
-            changeLightsFuture = Main.executor.submit(changeChunkLights);
+        if (this.time != time) {
+            this.time = time;
+            generation++;
         }
     }
 
     /**
-     * Checks to see if there is a thread to change the lighting currently
-     * running and updates it if it is.
+     * Marks the Game as changed, so it is written the next time it is saved.
+     * Called whenever the inventory changes.
      */
-    public void checkOnChangingLights() {
-        if (changeLightsFuture != null) { //Running
-            if (changeLightsFuture.isDone()) {
-                if (changeLightsFuture.isCancelled()) {
-                    Logger.getLogger(Main.class.getName()).log(Level.SEVERE, null, "changeChunkLights was CANCELLED");
-                }
-                changeLightsFuture = null;
-            }
-        }
+    public void markDirty() {
+        generation++;
+    }
+
+    /**
+     *
+     * @return If the inventory or time changed or the player moved since the
+     * Game was last written to the level file
+     */
+    public boolean isDirty() {
+        return generation != savedGeneration || !player.getControl().getPhysicsLocation().equals(savedLocation);
+    }
+
+    /**
+     *
+     * @return The amount of changes made to the Game since it was loaded
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Marks the Game as written up to the given generation.
+     *
+     * @param generation The generation of the Game when it was written into
+     * bytes
+     * @param location The location of the player when it was written into
+     * bytes
+     */
+    public void markSaved(int generation, Vector3f location) {
+        savedGeneration = generation;
+        savedLocation = location;
     }
 }
@@ -96,7 +96,8 @@ public abstract class Item implements Cloneable, Serializable, Comparable {
     private int maxAmount; //The maximum amount of the Item a stack of it can contain
     private int slotX, slotY; //The Item's slot in the inventory
     private SlotArea parent; //The area of slots that this Item is currently in
-    private Block blockUnder; //The Block udnerneath if it's in the scene graph
+    private transient Block blockUnder; //The Block udnerneath if it's in the scene graph
+    private Vector3f blockUnderLocation; //Where blockUnder is in the world; saved instead since the chunks are saved seperately
 
     static {
         ITEMS = new Item[128];
@@ -252,7 +253,7 @@ public abstract class Item implements Cloneable, Serializable, Comparable {
         spatial = ITEMS[type].getSpatial().clone(true);
         } catch (NullPointerException e){
         }
-        if (blockUnder != null) { //If it is in the World and not in a Window
+        if (blockUnderLocation != null) { //If it is in the World and not in a Window
             itemsToLoad.add(this);
         }
         setupPictures();
@@ -273,7 +274,11 @@ public abstract class Item implements Cloneable, Serializable, Comparable {
         Iterator<Item> iterator = itemsToLoad.iterator();
         while(iterator.hasNext()){
             Item item = iterator.next();
-            item.drop(item.blockUnder);
+            Block block = Main.currentGame.getBlockOrNull((int) item.blockUnderLocation.x, (int) item.blockUnderLocation.y,
+                    (int) item.blockUnderLocation.z);
+            if (block != null) { //Its chunk is loaded
+                item.drop(block);
+            }
         }
     }
     /**
@@ -317,7 +322,8 @@ public abstract class Item implements Cloneable, Serializable, Comparable {
      */
     public void drop(Block block) {
         blockUnder = block;
-        Utility.setLightLevel(spatial, block.getLightLevel());
+        blockUnderLocation = block.getWorldLocation();
+        Utility.setLightLevel(spatial, Light.getBrightness(block.getLightLevel()));
         spatial.scale(0.2f);
         spatial.setLocalTranslation(block.getX() + block.getParent().getX() * Main.MAX_BLOCKS, block.getY(), block.getZ() + block.getParent().getY() * Main.MAX_BLOCKS);
         setupControl();
@@ -381,6 +387,7 @@ public abstract class Item implements Cloneable, Serializable, Comparable {
         pop.playInstance(); //Plays the pop sound
         Main.currentGame.getDroppedItems().remove(this); //Removes it from the list of dropped item
         blockUnder = null;
+        blockUnderLocation = null;
     }
 
     @Override
@@ -537,6 +544,7 @@ public abstract class Item implements Cloneable, Serializable, Comparable {
      */
     public void setAmount(int amount) {
         this.amount = amount;
+        SlotArea.markChanged();
         if (amount == 1) { //Does not show any text if it's only 1
             numberText.setText("");
             barNumberText.setText("");
@@ -1,8 +1,7 @@
 package alston.minecraft;
 
-import java.io.Serializable;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
@@ -10,35 +9,64 @@ import java.util.logging.Logger;
 
 /**
  * A Object representation of a Point-Source Light, which propergates from the
- * origin with a decay to the surrounding adjacent Blocks with a decay. This
- * Light uses a "careful" brute force approach for it's algorithm.
+ * origin to the surrounding adjacent Blocks, losing 1 level for every Block it
+ * travels. Light levels are ints from 0 (dark) to MAX_LEVEL, and the light is
+ * spread breadth first thru a LightQueue, so a Block is only visited again if
+ * it gets brighter and the time taken grows linearly with the Blocks lit. Every
+ * Block has 2 light levels (channels): one for the light from the sun and one
+ * for the light from Torches, and a Light only spreads thru one of them.
  *
  * @author Alston
  * @version RTM
  */
-public class Light implements Serializable {
+public class Light {
 
     /**
-     * Public constant defining the ambient light value.
+     * Public constant defining the ambient light value; no Block is rendered
+     * darker than it.
      */
     public static final float AMBIENT = 1f;
+    /**
+     * The highest light level.
+     */
+    public static final int MAX_LEVEL = 15;
+    /**
+     * The light level of the sun at noon; the sky light is stored at this
+     * level and dimmed by the time of day only when it is rendered.
+     */
+    public static final int SUN_LEVEL = 12;
+    /**
+     * The light level of a Torch.
+     */
+    public static final int TORCH_LEVEL = 14;
+    /**
+     * How much brighter a Block is rendered for every light level.
+     */
+    public static final float BRIGHTNESS_PER_LEVEL = 0.25f;
+    /**
+     * The channel of the light that comes from the sun.
+     */
+    public static final int SKY_LIGHT = 0;
+    /**
+     * The channel of the light that comes from Torches.
+     */
+    public static final int BLOCK_LIGHT = 1;
     /**
      * A list containing all lights in existance that are NOT from the sun.
      */
     public static final CopyOnWriteArrayList<Light> existingLights;
     private static Runnable updateSunlight; //Thread for updating lighting
-    private static Future future; //So that only 1 can be updated at a time
-    private static LinkedList<Block> blocksToUpdate; //Used for the cross-method light algortihmns
-    //Private constant to represent the object when saving
-    private static final long serialVersionUID = 3724124124342523449L;
-    private float intensity; //The intensity of the light (Must be greater than AMBIENT)
-    private float originalIntensity;
-    private float decay; //The decay per Block 
+    private static Future future; //So that only 1 can be updated at a time; guarded by Light.class
+    private static boolean updateAgain; //If something changed while it was updating, so it updates once more after; guarded by Light.class
+    private static volatile float daylight = 1f; //How much of the sky light shows at the time of day
+    private static final LightQueue queue = new LightQueue(); //The Blocks left to spread light from; shared since only 1 Light is spread at a time
+    private static final LightQueue removalQueue = new LightQueue(); //The Blocks that went dark, with the level they had
+    private int level; //The light level at the origin
+    private int channel; //The light level of the Blocks that it lights up
     private Block origin; //Origin of the Light
 
     static { //Static initiation Block
         existingLights = new CopyOnWriteArrayList();
-        blocksToUpdate = new LinkedList();
         setupRunnable();
     }
 
@@ -46,14 +74,23 @@ public class Light implements Serializable {
      * Creates a new light at the specified location and properties.
      *
      * @param origin The Block where the light is being originated from
-     * @param intensity The intensity of the light above AMBIENT
-     * @param decay The decay of lighting per Block that the Light travels
+     * @param level The light level at the origin, from 0 to MAX_LEVEL
+     * @param channel SKY_LIGHT or BLOCK_LIGHT
      */
-    public Light(Block origin, float intensity, float decay) {
+    public Light(Block origin, int level, int channel) {
         this.origin = origin;
-        this.decay = decay;
-        this.intensity = intensity;
-        originalIntensity = intensity;
+        this.level = level;
+        this.channel = channel;
+    }
+
+    /**
+     *
+     * @param level A light level
+     * @return How bright a Block at the light level is rendered, never below
+     * AMBIENT
+     */
+    public static float getBrightness(int level) {
+        return Math.max(AMBIENT, level * BRIGHTNESS_PER_LEVEL);
     }
 
     /**
@@ -90,124 +127,467 @@ public class Light implements Serializable {
     }
 
     /**
-     * Starts a thread to update all lighting.
+     * Starts a thread to update all lighting, or updates it again once the
+     * one that is running is done. Can be called from any Thread.
      */
-    public static void updateLights() {
+    public static synchronized void updateLights() {
         if (future == null) {
             future = Main.executor.submit(updateSunlight);
+        } else {
+            updateAgain = true;
         }
     }
 
+    /**
+     * Changes how much of the sky light shows for the given time of day, from
+     * none at midnight to all of it at noon.
+     *
+     * @param time The time of day from 0 to 24, which can be between the
+     * hours
+     */
+    public static void setTimeOfDay(float time) {
+        daylight = Math.max(0f, (float) Math.sin(time / 24f * Math.PI));
+    }
+
+    /**
+     *
+     * @return How much of the sky light shows at the time of day, from 0 to 1
+     */
+    public static float getDaylight() {
+        return daylight;
+    }
+
     /**
      * Checks on the future for the sunlight thread.
      */
-    public static void checkOnFuture() {
+    public static synchronized void checkOnFuture() {
         if (future == null) { //Nothing is running
             return;
         }
         if (future.isDone()) { //Sets the future to null
             future = null;
+            if (updateAgain) {
+                updateAgain = false;
+                updateLights();
+            }
         }
     }
 
     /**
-     * Recalculates all the existingLights.
+     * Recalculates all the existingLights. The light levels are reset and
+     * spread again while holding the same lock as updateBlock() and
+     * updateChunk(), so neither of them sees a Chunk that is half reset.
      */
     private static void recalculateAllLights() {
-        //Removes all lights
-        Iterator<Chunk> iterator = Main.currentGame.getLoadedChunks().iterator();
-        while (iterator.hasNext()) {
-            Block[][][] blocks = iterator.next().getBlocks();
-            for (int i = 0; i < Main.MAX_BLOCKS; i++) {
-                for (int j = 0; j < Main.MAX_BLOCKS_Y; j++) {
-                    for (int k = 0; k < Main.MAX_BLOCKS; k++) {
-                        if (blocks[i][j][k].getLightLevel() != Light.AMBIENT) {
-                            blocks[i][j][k].setLightLevel(AMBIENT);
-                            blocksToUpdate.add(blocks[i][j][k]);
-                        }
+        List<Chunk> chunks;
+        synchronized (queue) {
+            chunks = Main.currentGame.getLoadedChunks(); //The same Chunks are reset and finished
+            //Removes all lights
+            Iterator<Chunk> iterator = chunks.iterator();
+            while (iterator.hasNext()) {
+                iterator.next().resetLightLevels();
+            }
+            //Recalculates Sunlights
+            Iterator<Chunk> sunLightIterator = chunks.iterator();
+            while (sunLightIterator.hasNext()) {
+                sunLightIterator.next().getSunlight().updateAllLights();
+            }
+            //Recalculates other lights
+            Iterator<Light> lightIterator = existingLights.iterator();
+            while (lightIterator.hasNext()) {
+                lightIterator.next().updateLighting();
+            }
+            Iterator<Chunk> finishIterator = chunks.iterator();
+            while (finishIterator.hasNext()) {
+                finishIterator.next().finishRelight();
+            }
+        }
+        //Rebuilds the meshes of the Chunks whose light levels changed
+        Iterator<Chunk> chunkIterator = chunks.iterator();
+        while (chunkIterator.hasNext()) {
+            Chunk chunk = chunkIterator.next();
+            if (chunk.hasLightChanges()) {
+                chunk.updateMesh();
+            }
+        }
+    }
+
+    /**
+     * Propagates lighting thru the Blocks from the origin, raising the light
+     * level of every Block it reaches that is darker. Light only spreads thru
+     * air and Torches, but lights up the other Blocks it touches. The Blocks
+     * are visited breadth first, so every Block gets the highest level it can
+     * the first time it is reached and is not visited again.
+     */
+    public void updateLighting() {
+        Chunk chunk = origin.getParent();
+        synchronized (queue) {
+            queue.clear();
+            if (chunk.getLightLevel(origin.getX(), origin.getY(), origin.getZ(), channel) < level) {
+                chunk.setLightLevel(origin.getX(), origin.getY(), origin.getZ(), channel, level);
+                queue.add(LightQueue.pack(origin.getX(), origin.getY(), origin.getZ(), level));
+            }
+            spread(chunk, channel);
+        }
+    }
+
+    /**
+     * Lights up a Chunk with sunlight using it's heightmap: the lowest air
+     * Block of every column that is open to the sky, and every Block beside
+     * open air, is lit with the given level, then it is all spread at once.
+     *
+     * @param chunk The Chunk to light up
+     * @param level The light level of the sun
+     */
+    public static void updateSkyLight(Chunk chunk, int level) {
+        if (level <= 0) { //Night
+            return;
+        }
+        synchronized (queue) {
+            queue.clear();
+            for (int x = 0; x < Main.MAX_BLOCKS; x++) {
+                for (int z = 0; z < Main.MAX_BLOCKS; z++) {
+                    int skyHeight = chunk.getSkyHeight(x, z);
+                    if (skyHeight < Main.MAX_BLOCKS_Y) {
+                        spreadTo(chunk, x, skyHeight, z, SKY_LIGHT, level);
                     }
+                    //The sides of the Blocks beside the open air of the column
+                    addSkySources(chunk, x - 1, z, skyHeight, level);
+                    addSkySources(chunk, x + 1, z, skyHeight, level);
+                    addSkySources(chunk, x, z - 1, skyHeight, level);
+                    addSkySources(chunk, x, z + 1, skyHeight, level);
                 }
             }
+            spread(chunk, SKY_LIGHT);
         }
-        //Recalculates Sunlights
-        Iterator<Chunk> sunLightIterator = Main.currentGame.getLoadedChunks().iterator();
-        while (sunLightIterator.hasNext()) {
-            sunLightIterator.next().getSunlight().updateAllLights();
+    }
+
+    /**
+     * Lights up a Chunk that was just loaded without recalculating every
+     * Light: the Chunk is lit by the sun and by it's own Torches, then the
+     * light at the edges of the Chunks beside it is spread into it. The meshes
+     * are left for the caller, which rebuilds the Chunks beside it anyway (see
+     * Chunk.updateAdjacentMeshes()).
+     *
+     * @param chunk The Chunk that was loaded, already linked to the Chunks
+     * beside it
+     */
+    public static void updateChunk(Chunk chunk) {
+        synchronized (queue) {
+            chunk.resetLightLevels(); //Could have been lit before it was unloaded
+            chunk.getSunlight().updateAllLights();
+            queue.clear();
+            for (int i = 0; i < Main.MAX_BLOCKS; i++) { //The sides of the Blocks beside the open air of the Chunks beside it
+                addBorderSkySources(chunk, 0, i, -1, i);
+                addBorderSkySources(chunk, Main.MAX_BLOCKS - 1, i, Main.MAX_BLOCKS, i);
+                addBorderSkySources(chunk, i, 0, i, -1);
+                addBorderSkySources(chunk, i, Main.MAX_BLOCKS - 1, i, Main.MAX_BLOCKS);
+            }
+            addBorder(chunk, SKY_LIGHT);
+            spread(chunk, SKY_LIGHT);
+            Iterator<Light> iterator = existingLights.iterator();
+            while (iterator.hasNext()) { //The Chunk's own Torches
+                Light light = iterator.next();
+                if (light.origin.getParent() == chunk) {
+                    light.updateLighting();
+                }
+            }
+            queue.clear();
+            addBorder(chunk, BLOCK_LIGHT);
+            spread(chunk, BLOCK_LIGHT);
+            chunk.finishRelight();
         }
-        //Recalculates other lights
-        Iterator<Light> lightIterator = existingLights.iterator();
-        while (lightIterator.hasNext()) {
-            lightIterator.next().updateLighting();
+    }
+
+    /**
+     * Lights up the Blocks of a column at the edge of a Chunk that are beside
+     * the open air of the column next to it in the Chunk beside it.
+     *
+     * @param chunk The Chunk the coordinates are relative to
+     * @param x The x coordinate of the column in the Chunk
+     * @param z The z coordinate of the column in the Chunk
+     * @param outsideX The x coordinate of the column in the Chunk beside it
+     * @param outsideZ The z coordinate of the column in the Chunk beside it
+     */
+    private static void addBorderSkySources(Chunk chunk, int x, int z, int outsideX, int outsideZ) {
+        int bottom = chunk.getSkyHeight(outsideX, outsideZ);
+        if (bottom >= 0) { //The Chunk beside it is loaded
+            addSkySources(chunk, x, z, bottom, chunk.getSunlight().getLevel());
         }
-        //Updates all the Blocks to change
-        Iterator<Block> blockIterator = blocksToUpdate.iterator();
-        while (blockIterator.hasNext()) {
-            blockIterator.next().updateVertices();
+    }
+
+    /**
+     * Queues every lit Block of the Chunks beside the given Chunk that touches
+     * it, so their light spreads into it.
+     *
+     * @param chunk The Chunk the light is spread into
+     * @param channel SKY_LIGHT or BLOCK_LIGHT
+     */
+    private static void addBorder(Chunk chunk, int channel) {
+        for (int i = 0; i < Main.MAX_BLOCKS; i++) {
+            for (int y = 0; y < Main.MAX_BLOCKS_Y; y++) {
+                addBorderBlock(chunk, -1, y, i, channel);
+                addBorderBlock(chunk, Main.MAX_BLOCKS, y, i, channel);
+                addBorderBlock(chunk, i, y, -1, channel);
+                addBorderBlock(chunk, i, y, Main.MAX_BLOCKS, channel);
+            }
         }
-        blocksToUpdate.clear(); //resets it
     }
 
     /**
-     * Proprogates lighting thru the Blocks and applies it's effects to the
-     * Block's lightLevel value if it's high than it's current one. This is not
-     * done in the method itself, but simply triggers a recursive light
-     * propergating algrorithm starting at the light's origin.
+     * Queues a Block to spread it's light if it has enough to reach past it.
+     *
+     * @param chunk The Chunk the coordinates are relative to
+     * @param x The x coordinate of the Block
+     * @param y The y coordinate of the Block
+     * @param z The z coordinate of the Block
+     * @param channel SKY_LIGHT or BLOCK_LIGHT
      */
-    public void updateLighting() {
-        updateLighting(origin, intensity);
+    private static void addBorderBlock(Chunk chunk, int x, int y, int z, int channel) {
+        int level = chunk.getLightLevel(x, y, z, channel); //0 if it is not loaded
+        if (level > 1) {
+            queue.add(LightQueue.pack(x, y, z, level));
+        }
     }
 
     /**
-     * Updates the Blocks that the light influences recursively on all sides
-     * (part 1).
+     * Lights up the Blocks of a column that are beside the open air of the
+     * column next to it, from the bottom of the open air up to the top of the
+     * column.
      *
-     * @param block The Block where the Light will originate from
-     * @param lightLevel The light level for the given Block
+     * @param chunk The Chunk the coordinates are relative to
+     * @param x The x coordinate of the column
+     * @param z The z coordinate of the column
+     * @param bottom The sky height of the column next to it
+     * @param level The light level of the sun
      */
-    private void updateLighting(Block block, float lightLevel) {
-        block.setLightLevel(lightLevel);
-        blocksToUpdate.add(block);
-        if (!(block.getType() == Item.AIR || block instanceof Torch)) { //Will only spread to other blocks if it's air or it's a Torch
-            return;
+    private static void addSkySources(Chunk chunk, int x, int z, int bottom, int level) {
+        int top = chunk.getSkyHeight(x, z); //-1 if it is not loaded
+        for (int y = Math.max(0, bottom); y < top; y++) {
+            if (chunk.getType(x, y, z) != Item.AIR) {
+                spreadTo(chunk, x, y, z, SKY_LIGHT, level);
+            }
+        }
+    }
+
+    /**
+     * Updates the light around a Block that changed type without recalculating
+     * every Light, so only the Blocks within reach of it are visited. The
+     * meshes of the Chunks around it whose light changed are rebuilt; the
+     * Chunk of the Block is left for the caller, which has to rebuild it for
+     * the new Block anyway.
+     *
+     * @param chunk The Chunk of the Block
+     * @param x The x coordinate of the Block
+     * @param y The y coordinate of the Block
+     * @param z The z coordinate of the Block
+     * @param oldSkyHeight The sky height of the Block's column before it
+     * changed (from Chunk.getSkyHeight())
+     */
+    public static void updateBlock(Chunk chunk, int x, int y, int z, int oldSkyHeight) {
+        synchronized (queue) {
+            updateBlock(chunk, x, y, z, oldSkyHeight, SKY_LIGHT);
+            updateBlock(chunk, x, y, z, oldSkyHeight, BLOCK_LIGHT);
+        }
+        for (int i = -1; i <= 1; i++) { //Light never reaches past the Chunks beside it
+            for (int j = -1; j <= 1; j++) {
+                Chunk adjacentChunk = chunk.getAdjacentChunk(i, j);
+                if (adjacentChunk != null && adjacentChunk != chunk && adjacentChunk.hasLightChanges()) {
+                    adjacentChunk.updateMesh();
+                }
+            }
         }
-        //Sets the surrounding Block's lighting
-        updateLighting(block, -1, 0, 0);
-        updateLighting(block, 1, 0, 0);
-        updateLighting(block, 0, -1, 0);
-        updateLighting(block, 0, 1, 0);
-        updateLighting(block, 0, 0, -1);
-        updateLighting(block, 0, 0, 1);
     }
 
     /**
-     * Updates the lighting at the Block at the given offsets from this Block
-     * (2nd part of the recursive method).
+     * Updates one channel of the light around a Block that changed type. The
+     * light that reached the Block (and for sunlight, the Blocks along it's
+     * column if they were opened up to or covered from the sky) is removed
+     * first, going outwards thru every Block that was darker than the Block it
+     * came from. Every brighter Block found at the edge of what was removed,
+     * and every Block inside it that gives off light of it's own, is then
+     * spread again.
      *
-     * @param originalBlock The Block that will be the basis for the lcoations
-     * @param xOffset Offset on the x axis
-     * @param yOffset Offset on the y axis
-     * @param zOffset Offset on the z axis
+     * @param chunk The Chunk of the Block
+     * @param x The x coordinate of the Block
+     * @param y The y coordinate of the Block
+     * @param z The z coordinate of the Block
+     * @param oldSkyHeight The sky height of the Block's column before it
+     * changed
+     * @param channel SKY_LIGHT or BLOCK_LIGHT
+     */
+    private static void updateBlock(Chunk chunk, int x, int y, int z, int oldSkyHeight, int channel) {
+        queue.clear();
+        removalQueue.clear();
+        int changedBlock = LightQueue.pack(x, y, z, 0);
+        removeLight(chunk, x, y, z, channel);
+        int skyHeight = chunk.getSkyHeight(x, z);
+        if (channel == SKY_LIGHT && skyHeight != oldSkyHeight) { //The Blocks along the column and beside it could have gained or lost sunlight
+            for (int i = Math.max(0, Math.min(skyHeight, oldSkyHeight)); i <= Math.max(skyHeight, oldSkyHeight) && i < Main.MAX_BLOCKS_Y; i++) {
+                if (i != y) {
+                    removeLight(chunk, x, i, z, channel);
+                }
+                removeLight(chunk, x - 1, i, z, channel);
+                removeLight(chunk, x + 1, i, z, channel);
+                removeLight(chunk, x, i, z - 1, channel);
+                removeLight(chunk, x, i, z + 1, channel);
+            }
+        }
+        while (!removalQueue.isEmpty()) {
+            int packed = removalQueue.remove();
+            int blockX = LightQueue.unpackX(packed), blockY = LightQueue.unpackY(packed), blockZ = LightQueue.unpackZ(packed);
+            int level = LightQueue.unpackLevel(packed);
+            int type = chunk.getType(blockX, blockY, blockZ);
+            //The changed Block could have been air, so the light that went thru it is removed either way
+            boolean spread = type == Item.AIR || type == Item.TORCH || packed - level == changedBlock;
+            removeLight(chunk, blockX - 1, blockY, blockZ, channel, level, spread);
+            removeLight(chunk, blockX + 1, blockY, blockZ, channel, level, spread);
+            removeLight(chunk, blockX, blockY - 1, blockZ, channel, level, spread);
+            removeLight(chunk, blockX, blockY + 1, blockZ, channel, level, spread);
+            removeLight(chunk, blockX, blockY, blockZ - 1, channel, level, spread);
+            removeLight(chunk, blockX, blockY, blockZ + 1, channel, level, spread);
+            int sourceLevel = getSourceLevel(chunk, blockX, blockY, blockZ, channel);
+            if (sourceLevel > chunk.getLightLevel(blockX, blockY, blockZ, channel)) { //Gives off light of it's own
+                chunk.setLightLevel(blockX, blockY, blockZ, channel, sourceLevel);
+                queue.add(LightQueue.pack(blockX, blockY, blockZ, sourceLevel));
+            }
+        }
+        spread(chunk, channel);
+    }
+
+    /**
+     * Spreads the light from every Block in the queue until it runs out.
      *
+     * @param chunk The Chunk the coordinates in the queue are relative to
+     * @param channel SKY_LIGHT or BLOCK_LIGHT
      */
-    private void updateLighting(Block originalBlock, int xOffset, int yOffset, int zOffset) {
-        Block block = originalBlock.getParent().getBlock(originalBlock.getX() + xOffset, originalBlock.getY() + yOffset, originalBlock.getZ() + zOffset);
-        if (block != null) { //Ensures there is a Block 
-            if (Math.round((originalBlock.getLightLevel() - decay) * 100) > Math.round(block.getLightLevel() * 105)) { //It's turning brighter
-                updateLighting(block, originalBlock.getLightLevel() - decay);
+    private static void spread(Chunk chunk, int channel) {
+        while (!queue.isEmpty()) {
+            int packed = queue.remove();
+            int x = LightQueue.unpackX(packed), y = LightQueue.unpackY(packed), z = LightQueue.unpackZ(packed);
+            int nextLevel = LightQueue.unpackLevel(packed) - 1;
+            if (chunk.getLightLevel(x, y, z, channel) != nextLevel + 1) { //Changed since it was queued; it will be spread from elsewhere if it is still lit
+                continue;
+            }
+            int type = chunk.getType(x, y, z);
+            if (nextLevel <= 0 || !(type == Item.AIR || type == Item.TORCH)) { //Will only spread to other blocks if it's air or it's a Torch
+                continue;
             }
+            //Sets the surrounding Block's lighting
+            spreadTo(chunk, x - 1, y, z, channel, nextLevel);
+            spreadTo(chunk, x + 1, y, z, channel, nextLevel);
+            spreadTo(chunk, x, y - 1, z, channel, nextLevel);
+            spreadTo(chunk, x, y + 1, z, channel, nextLevel);
+            spreadTo(chunk, x, y, z - 1, channel, nextLevel);
+            spreadTo(chunk, x, y, z + 1, channel, nextLevel);
         }
     }
 
     /**
-     * Multiplies the intensity of the Light by the given factor. This will
-     * change the intensity value and the multiple is only of the intensity
-     * value.
+     * Lights up the Block at the given coordinates if it is darker than the
+     * given level, and queues it to spread the light further.
      *
-     * @param factor A positive floating point value that will be the multiple
-     * of the intensity, with 1 being no change
+     * @param chunk The Chunk the coordinates are relative to
+     * @param x The x coordinate of the Block
+     * @param y The y coordinate of the Block
+     * @param z The z coordinate of the Block
+     * @param channel SKY_LIGHT or BLOCK_LIGHT
+     * @param level The light level that reaches the Block
      */
-    public void factorInfluences(float factor) {
-        intensity = originalIntensity * factor;
+    private static void spreadTo(Chunk chunk, int x, int y, int z, int channel, int level) {
+        if (chunk.getType(x, y, z) == Item.NAN) { //Outside of the map or the loaded Chunks
+            return;
+        }
+        if (chunk.getLightLevel(x, y, z, channel) < level) { //It's turning brighter
+            chunk.setLightLevel(x, y, z, channel, level);
+            queue.add(LightQueue.pack(x, y, z, level));
+        }
+    }
+
+    /**
+     * Removes the light from a Block and queues it so the light it passed on
+     * is removed too, even if it was dark (so it can be checked for light of
+     * it's own).
+     *
+     * @param chunk The Chunk the coordinates are relative to
+     * @param x The x coordinate of the Block
+     * @param y The y coordinate of the Block
+     * @param z The z coordinate of the Block
+     * @param channel SKY_LIGHT or BLOCK_LIGHT
+     */
+    private static void removeLight(Chunk chunk, int x, int y, int z, int channel) {
+        if (chunk.getType(x, y, z) == Item.NAN) { //Outside of the map or the loaded Chunks
+            return;
+        }
+        removalQueue.add(LightQueue.pack(x, y, z, chunk.getLightLevel(x, y, z, channel)));
+        chunk.setLightLevel(x, y, z, channel, 0);
+    }
+
+    /**
+     * Removes the light from a Block beside one that went dark if it could
+     * have come from it; otherwise, the Block is lit from somewhere else and is
+     * queued to spread it's light back.
+     *
+     * @param chunk The Chunk the coordinates are relative to
+     * @param x The x coordinate of the Block
+     * @param y The y coordinate of the Block
+     * @param z The z coordinate of the Block
+     * @param channel SKY_LIGHT or BLOCK_LIGHT
+     * @param level The level the Block that went dark had
+     * @param spread If the Block that went dark passed it's light on
+     */
+    private static void removeLight(Chunk chunk, int x, int y, int z, int channel, int level, boolean spread) {
+        int lightLevel = chunk.getLightLevel(x, y, z, channel);
+        if (lightLevel == 0) { //Already dark, or not loaded
+            return;
+        }
+        if (spread && lightLevel < level) { //Could have been lit by it
+            chunk.setLightLevel(x, y, z, channel, 0);
+            removalQueue.add(LightQueue.pack(x, y, z, lightLevel));
+        } else {
+            queue.add(LightQueue.pack(x, y, z, lightLevel));
+        }
+    }
+
+    /**
+     * Gets the light a Block gives off on it's own: a Torch gives off block
+     * light, and a Block gives off sunlight if it is the lowest air Block that
+     * is open to the sky, or if it is beside air that is open to the sky.
+     *
+     * @param chunk The Chunk the coordinates are relative to
+     * @param x The x coordinate of the Block
+     * @param y The y coordinate of the Block
+     * @param z The z coordinate of the Block
+     * @param channel SKY_LIGHT or BLOCK_LIGHT
+     * @return The light level the Block gives off, or 0 if it does not
+     */
+    private static int getSourceLevel(Chunk chunk, int x, int y, int z, int channel) {
+        int type = chunk.getType(x, y, z);
+        if (channel == BLOCK_LIGHT) {
+            return type == Item.TORCH ? TORCH_LEVEL : 0;
+        }
+        boolean sunlit;
+        if (type == Item.NAN) {
+            sunlit = false;
+        } else if (type == Item.AIR) {
+            sunlit = y == chunk.getSkyHeight(x, z);
+        } else {
+            sunlit = isOpenToSky(chunk, x - 1, y, z) || isOpenToSky(chunk, x + 1, y, z)
+                    || isOpenToSky(chunk, x, y, z - 1) || isOpenToSky(chunk, x, y, z + 1);
+        }
+        return sunlit ? chunk.getSunlight().getLevel() : 0;
+    }
+
+    /**
+     *
+     * @param chunk The Chunk the coordinates are relative to
+     * @param x The x coordinate of the Block
+     * @param y The y coordinate of the Block
+     * @param z The z coordinate of the Block
+     * @return If the Block is air with nothing but air above it
+     */
+    private static boolean isOpenToSky(Chunk chunk, int x, int y, int z) {
+        return chunk.getType(x, y, z) == Item.AIR && y >= chunk.getSkyHeight(x, z);
     }
 
     /**
@@ -220,9 +600,17 @@ public class Light implements Serializable {
 
     /**
      *
-     * @return The intensity of this Light
+     * @return The light level at the origin of this Light
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     *
+     * @return The channel of the light levels this Light lights up
      */
-    public float getIntensity() {
-        return intensity;
+    public int getChannel() {
+        return channel;
     }
 }
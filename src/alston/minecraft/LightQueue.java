@@ -0,0 +1,122 @@
+package alston.minecraft;
+
+/**
+ * A first in, first out queue of ints kept in a ring buffer, used to spread
+ * light Block by Block without recursing and without creating an Object for
+ * every Block. The coordinates and light level of a Block are packed into a
+ * single int by pack(), relative to the Chunk the light is being spread from,
+ * so the Blocks in the Chunks around it can be reached as well.
+ *
+ * @author Alston
+ * @version RTM
+ */
+public class LightQueue {
+
+    private static final int OFFSET = 512; //Lets the X and Z coordinates go into the Chunks on either side
+    private int[] elements;
+    private int head; //Index of the first element
+    private int size;
+
+    /**
+     * Creates an empty queue.
+     */
+    public LightQueue() {
+        elements = new int[4096];
+    }
+
+    /**
+     * Packs the coordinates of a Block and it's light level into an int.
+     *
+     * @param x The x coordinate relative to the Chunk, from -512 to 511
+     * @param y The y coordinate, from 0 to 63
+     * @param z The z coordinate relative to the Chunk, from -512 to 511
+     * @param level The light level, from 0 to 15
+     * @return The packed int
+     */
+    public static int pack(int x, int y, int z, int level) {
+        return (x + OFFSET) << 20 | (z + OFFSET) << 10 | y << 4 | level;
+    }
+
+    /**
+     *
+     * @param packed An int made by pack()
+     * @return The x coordinate
+     */
+    public static int unpackX(int packed) {
+        return (packed >>> 20) - OFFSET;
+    }
+
+    /**
+     *
+     * @param packed An int made by pack()
+     * @return The y coordinate
+     */
+    public static int unpackY(int packed) {
+        return packed >>> 4 & 0x3F;
+    }
+
+    /**
+     *
+     * @param packed An int made by pack()
+     * @return The z coordinate
+     */
+    public static int unpackZ(int packed) {
+        return (packed >>> 10 & 0x3FF) - OFFSET;
+    }
+
+    /**
+     *
+     * @param packed An int made by pack()
+     * @return The light level
+     */
+    public static int unpackLevel(int packed) {
+        return packed & 0xF;
+    }
+
+    /**
+     * Adds an element to the end of the queue, doubling the buffer if it is
+     * full.
+     *
+     * @param element The element to add
+     */
+    public void add(int element) {
+        if (size == elements.length) {
+            int[] grown = new int[elements.length * 2];
+            for (int i = 0; i < size; i++) { //Unwraps the elements to the start
+                grown[i] = elements[(head + i) & (elements.length - 1)];
+            }
+            elements = grown;
+            head = 0;
+        }
+        elements[(head + size) & (elements.length - 1)] = element; //The length is always a power of 2
+        size++;
+    }
+
+    /**
+     * Removes the element at the front of the queue.
+     *
+     * @return The element
+     */
+    public int remove() {
+        int element = elements[head];
+        head = (head + 1) & (elements.length - 1);
+        size--;
+        return element;
+    }
+
+    /**
+     *
+     * @return If there are no elements in the queue
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes every element, keeping the buffer.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+}
@@ -104,14 +104,18 @@ import com.jme3.renderer.queue.RenderQueue;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Node;
 import com.jme3.system.AppSettings;
+import com.jme3.texture.Image;
+import com.jme3.texture.Texture;
+import com.jme3.texture.TextureArray;
 import com.jme3.ui.Picture;
+import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.logging.FileHandler;
@@ -157,6 +161,11 @@ public final class Main extends SimpleApplication {
      * Defines the number of Block per Chunk in the Y axis.
      */
     public static final int MAX_BLOCKS_Y;
+    /**
+     * Defines the number of seconds between each time the game is saved in the
+     * background while it is being played.
+     */
+    public static final int AUTOSAVE_INTERVAL;
     /**
      * Contains important information of the application, such as screen
      * dimensions.
@@ -200,6 +209,11 @@ public final class Main extends SimpleApplication {
      * cloned) because it keep tracks of subtypes as well.
      */
     static final Block[] blockPrototypes;
+    /**
+     * The Material shared by the meshes of every Chunk; it holds the textures
+     * of all the Block types in a single texture array.
+     */
+    static Material blockMaterial;
     /**
      * Hash Map to map a Picture on the GUI to the Item. Used in order for
      * simplicity for clicking and dragging in the GUI.
@@ -211,16 +225,22 @@ public final class Main extends SimpleApplication {
      * Item, used for simplifying) as type parameters.
      */
     static final RecipeMap<Item> recipeMap;
+    /**
+     * Saves and loads the world; only replaced before the Game starts, if the
+     * world could not be loaded or moved aside.
+     */
+    static WorldStorage worldStorage;
     /**
      * The currently showed GUI window
      */
     static Window shownWindow;
     //Private static variables; there should only be one instance of these at all times
     private static Main instance; //The current instance of Main (and it's superclass SimpleApplication)
-    private static int chunkXModifier, chunkYModifier; //Tracking variables for chunk creation thread; can only move in 1 axis at a time
-    private static long crossedChunkTime; //Records the time when it was first recorded user crossed a chunk
     private static long lastMobTick; //Keeps track of the last time mobs was updated
     private static long lastTimeChange; //Last time the time was changed
+    private static long lastAutosave; //Last time the game was autosaved
+    private static Future autosaveFuture; //The autosave being written in the background, if any
+    private static Future journalFuture; //The edits being written to the journal in the background, if any
     private static boolean forwards, backwards, left, right; //Movement booleans
     private static boolean stopEmittingParticles; //Signal from actionListener to analogListener to stop emitting particles
     private static boolean soundPlayingLastTick = false; //Tracks if the sound was playing at the last tick
@@ -236,40 +256,7 @@ public final class Main extends SimpleApplication {
     private static Picture highQuality, lowQuality; //Pictures that much have refrences to
     private static AudioNode step; //Sound of the player walkings
     private static ParticleEmitter particleEmitter; //Particle effect
-    private static Future future; //Keeps track of multithreading
-    private static Runnable changeChunks = new Runnable() { //A runnable task that will destroy and load chunks based on pre-set fields
-        public void run() { //Destroys and creates chunks to change which chunks are loaded in a seperate thread
-            //Destroys the chunks
-            if (chunkXModifier != 0) { //If it is moving on the X axis
-                for (int i = -1; i <= 1; i++) { //Modifies the action 3 times for each block along the X axis
-                    currentGame.getChunk(currentGame.getCurrentChunkX() - chunkXModifier,
-                            currentGame.getCurrentChunkY() + i).destroy(); //Destroys the chunk that player is moving away from
-                    if (currentGame.getChunk(currentGame.getCurrentChunkX() + 2 * chunkXModifier,
-                            currentGame.getCurrentChunkY() + i) == null) { //If the player has never loaded this chunk before
-                        Chunk chunk = new Chunk(currentGame.getCurrentChunkX() + 2 * chunkXModifier, currentGame.getCurrentChunkY() + i);
-                        currentGame.add(chunk, chunk.getX(), chunk.getY());
-                    } else { //Player has been to this chunk before
-                        currentGame.getChunk(currentGame.getCurrentChunkX() + 2 * chunkXModifier,
-                                currentGame.getCurrentChunkY() + i).restore();
-                    }
-                }
-            } else { //Moving on the Y axis
-                for (int i = -1; i <= 1; i++) { //Modifies the action 3 times for each block along the Y axis
-                    currentGame.getChunk(currentGame.getCurrentChunkX() + i,
-                            currentGame.getCurrentChunkY() - chunkYModifier).destroy(); //Destroys the chunk that player is moving away from
-                    if (currentGame.getChunk(currentGame.getCurrentChunkX() + i,
-                            currentGame.getCurrentChunkY() + 2 * chunkYModifier) == null) { //Creates a new Chunk if player has never been here
-                        Chunk chunk = new Chunk(currentGame.getCurrentChunkX() + i,
-                                currentGame.getCurrentChunkY() + 2 * chunkYModifier);
-                        currentGame.add(chunk, chunk.getX(), chunk.getY());
-                    } else { //Player has been to this chunk before
-                        currentGame.getChunk(currentGame.getCurrentChunkX() + i,
-                                currentGame.getCurrentChunkY() + 2 * chunkYModifier).restore();
-                    }
-                }
-            }
-        }
-    };
+    private static ChunkStreamer chunkStreamer; //Keeps the chunks around the player loaded
 
     /**
      * An enumerator so that a switch statement will work with the Strings of
@@ -277,7 +264,7 @@ public final class Main extends SimpleApplication {
      */
     private enum Action {
 
-        LEFT, RIGHT, FORWARDS, BACKWARDS, JUMP, LEFT_CLICK, RIGHT_CLICK, INVENTORY, ESCAPE, DROP;
+        LEFT, RIGHT, FORWARDS, BACKWARDS, JUMP, LEFT_CLICK, RIGHT_CLICK, INVENTORY, ESCAPE, DROP, RENDER_DISTANCE_UP, RENDER_DISTANCE_DOWN;
     }//End of Action
     private ActionListener actionListener = new ActionListener() {
         @Override
@@ -331,6 +318,16 @@ public final class Main extends SimpleApplication {
                             }
                         }
                         return;
+                    case RENDER_DISTANCE_UP:
+                        if (isPressed) {
+                            setRenderDistance(chunkStreamer.getRenderDistance() + 1);
+                        }
+                        return;
+                    case RENDER_DISTANCE_DOWN:
+                        if (isPressed) {
+                            setRenderDistance(chunkStreamer.getRenderDistance() - 1);
+                        }
+                        return;
                     case DROP:
                         if (isPressed) { //Only does any action when the key is pressed
                             currentGame.getPlayer().getInventory().getInventorySpace().getItems()[currentGame.getPlayer().getInventory().getCurrentItem()][0].drop();
@@ -373,49 +370,25 @@ public final class Main extends SimpleApplication {
                         if (collisionResults.size() == 0) { //Returns if it did not collide with any blocks
                             return;
                         }
-                        Geometry closestBlock = collisionResults.getClosestCollision().getGeometry();
-                        Block block = Utility.getBlock(closestBlock.getLocalTranslation().x, closestBlock.getLocalTranslation().y,
-                                closestBlock.getLocalTranslation().z);
+                        Vector3f blockLocation = getHitBlockLocation(collisionResults.getClosestCollision(), ray);
+                        Block block = Utility.getBlock(blockLocation.x, blockLocation.y, blockLocation.z);
                         if (block instanceof Clickable) { //Clickable Block
                             ((Clickable) block).click();
                             return;
                         }
                         if (collisionResults.getClosestCollision().getDistance() <= 6f) {
                             int xModifier = 0, yModifier = 0, zModifier = 0;
-                            if (Utility.round(collisionResults.getClosestCollision().getContactPoint().getX()) == closestBlock
-                                    .getLocalTranslation().getX() + 0.5) { //Right clicked on the +X side
-                                xModifier = 1;
-                                yModifier = 0;
-                                zModifier = 0;
-                            } else if (Utility.round(collisionResults.getClosestCollision().getContactPoint().getX()) == closestBlock
-                                    .getLocalTranslation().getX() - 0.5) { //Right clicked on the -X side
-                                xModifier = -1;
-                                yModifier = 0;
-                                zModifier = 0;
-                            } else if (Utility.round(collisionResults.getClosestCollision().getContactPoint().getZ()) == closestBlock
-                                    .getLocalTranslation().getZ() + 0.5) { //Right clicked on the +Z side
-                                xModifier = 0;
-                                yModifier = 0;
-                                zModifier = 1;
-                            } else if (Utility.round(collisionResults.getClosestCollision().getContactPoint().getZ()) == closestBlock
-                                    .getLocalTranslation().getZ() - 0.5) { //Right clicked on the -Z side
-                                xModifier = 0;
-                                yModifier = 0;
-                                zModifier = -1;
-                            } else if (Utility.round(collisionResults.getClosestCollision().getContactPoint().getY()) == closestBlock
-                                    .getLocalTranslation().getY() + 0.5) { //Right clicked above
-                                xModifier = 0;
-                                yModifier = 1;
-                                zModifier = 0;
-                            } else if (Utility.round(collisionResults.getClosestCollision().getContactPoint().getY()) == closestBlock
-                                    .getLocalTranslation().getY() - 0.5) { //Right clicked below
-                                xModifier = 0;
-                                yModifier = -1;
-                                zModifier = 0;
+                            //The side that was clicked is the one furthest from the center of the Block
+                            Vector3f offset = collisionResults.getClosestCollision().getContactPoint().subtract(blockLocation);
+                            if (Math.abs(offset.x) >= Math.abs(offset.y) && Math.abs(offset.x) >= Math.abs(offset.z)) { //Right clicked on the +X or -X side
+                                xModifier = offset.x > 0 ? 1 : -1;
+                            } else if (Math.abs(offset.z) >= Math.abs(offset.y)) { //Right clicked on the +Z or -Z side
+                                zModifier = offset.z > 0 ? 1 : -1;
+                            } else { //Right clicked above or below
+                                yModifier = offset.y > 0 ? 1 : -1;
                             }
                             currentGame.getPlayer().getInventory().getInventorySpace().getItems()[currentGame.getPlayer().getInventory().getCurrentItem()][0]
-                                    .rightClick((int) closestBlock.getLocalTranslation().getX(), (int) closestBlock.getLocalTranslation().getY(),
-                                    (int) closestBlock.getLocalTranslation().getZ(), xModifier, yModifier, zModifier);
+                                    .rightClick((int) blockLocation.x, (int) blockLocation.y, (int) blockLocation.z, xModifier, yModifier, zModifier);
                         }
                     }
                 }
@@ -454,9 +427,11 @@ public final class Main extends SimpleApplication {
                         currentGame.getPlayer().attack(potentialMob);
                         return;
                     }
-                    Block block = currentGame.getChunk(currentGame.getCurrentChunkX(), currentGame.getCurrentChunkY()).getBlock((int) closestGeom
-                            .getLocalTranslation().getX() - currentGame.getCurrentChunkX() * MAX_BLOCKS, (int) closestGeom.getLocalTranslation().getY(),
-                            (int) closestGeom.getLocalTranslation().getZ() - currentGame.getCurrentChunkY() * MAX_BLOCKS); //For readability
+                    Vector3f blockLocation = getHitBlockLocation(collisionResults.getClosestCollision(), ray);
+                    Block block = Utility.getBlock(blockLocation.x, blockLocation.y, blockLocation.z);
+                    if (block == null) { //In a chunk that is not loaded
+                        return;
+                    }
 
                     //Checks if the Item is a tool, and multiplies appropriately
                     Item currentItem = currentGame.getPlayer().getInventory().getInventorySpace().getItems()[currentGame.getPlayer()
@@ -483,15 +458,17 @@ public final class Main extends SimpleApplication {
                             lastClickedBlock = block;
                             block.setHealth(block.getHealth() - value);
                             //Gets particles to appear while breaking
-                            particleEmitter.setLocalTranslation(block.getSpatial().getLocalTranslation());
+                            particleEmitter.setLocalTranslation(block.getWorldLocation());
                             particleEmitter.emitAllParticles();
                             particleEmitter.setNumParticles(30);
                         }
-                    } else if (lastClickedBlock == block) { //If the user clicked on the same block he did in the last tick
+                    } else if (lastClickedBlock.equals(block)) { //If the user clicked on the same block he did in the last tick
+                        block = lastClickedBlock; //Blocks are views, so the one holding the damage is kept
                         block.setHealth(block.getHealth() - value);
                     } else { //If it's a new block 
-                        particleEmitter.setLocalTranslation(block.getSpatial().getLocalTranslation()); //Moves the particle emitter
+                        particleEmitter.setLocalTranslation(block.getWorldLocation()); //Moves the particle emitter
                         lastClickedBlock.resetHealth();
+                        lastClickedBlock = block;
                         block.setHealth(block.getHealth() - value);
                     }
                     if (block.getHealth() <= 0) { //If the block is destroyed
@@ -540,6 +517,7 @@ public final class Main extends SimpleApplication {
         FLY_MODE = false;
         MAX_BLOCKS = 32;
         MAX_BLOCKS_Y = 64;
+        AUTOSAVE_INTERVAL = 300;
         stopEmittingParticles = true;
         blockNode = new Node("Blocks");
         blockPrototypes = new Block[32];
@@ -548,6 +526,7 @@ public final class Main extends SimpleApplication {
         picturesMap = new HashMap();
         particleEmitter = new ParticleEmitter("Breaking Effect", ParticleMesh.Type.Triangle, 50);
         recipeMap = new RecipeMap(EmptyItem.class);
+        worldStorage = new WorldStorage(new File("World"));
         APP_SETTINGS = new AppSettings(true);
         lastTimeChange = System.nanoTime();
         loading = new Picture("Loading");
@@ -668,7 +647,6 @@ public final class Main extends SimpleApplication {
         step.setVolume(0.05f);
         blockGeometry = (Geometry) assetManager.loadModel("Models/Block.j3o"); //Casted to allow for vertices manipulation
         flyCam.setMoveSpeed(5f);
-        cam.setFrustumPerspective(35, settings.getWidth() / settings.getHeight(), 0.2f, 90); //Adjusts frustrum near and far planes
         //Initalization methods
         setupCrossHairs();
         setupKeys();
@@ -685,12 +663,14 @@ public final class Main extends SimpleApplication {
         }
         //Either sets the current game as a newly created game, or a saved game
         if (newGame) {
-            currentGame = new Game();
+            createNewGame();
         } else { //Otherwise load the game from file
             load();
             currentGame.getPlayer().getInventory().restore(); //Sets up inventory once Game is initialized
             Item.restoreSpatials(); //Workaround for a bug between Deserialization and JME's rootNode
         }
+        chunkStreamer = new ChunkStreamer(currentGame, ChunkStreamer.DEFAULT_RENDER_DISTANCE);
+        setRenderDistance(ChunkStreamer.DEFAULT_RENDER_DISTANCE); //Also adjusts the frustrum to it
         //Sky background
         viewPort.setBackgroundColor(ColorRGBA.Blue);
         //Adds everything to rootNode
@@ -699,6 +679,7 @@ public final class Main extends SimpleApplication {
         guiNode.detachChild(loading);
         guiNode.detachChild(titleScreen);
         inputManager.setCursorVisible(false);
+        lastAutosave = System.nanoTime();
         gameStarted = true;
     }
 
@@ -718,13 +699,17 @@ public final class Main extends SimpleApplication {
             if (!FLY_MODE) { //Only updates the player's and camera's location if flying is not enabled
                 updatePlayer();
             }
-            checkForChunkChange();
+            if (chunkStreamer.update(currentGame.getPlayer().getControl().getPhysicsLocation())) { //Player moved to another chunk
+                despawnMobs();
+                checkForMobSpawn();
+            }
             if (System.nanoTime() > lastMobTick + 1e9) { //More than 1 second has past since last tick
                 updateMobs();
                 lastMobTick = System.nanoTime();
             }
-            currentGame.checkOnChangingLights();
             checkForTimeChange();
+            checkForAutosave();
+            checkForJournalFlush();
             //Updates the sound listener lcoation
             listener.setLocation(cam.getLocation());
             listener.setRotation(cam.getRotation());
@@ -750,7 +735,9 @@ public final class Main extends SimpleApplication {
     }//End of simpleUpdate  
 
     /**
-     * Checks if the time should be changed.
+     * Checks if the time should be changed, and moves the sun smoothly between
+     * the hours. Only the daylight parameter of the block material changes, so
+     * no Chunk is lit up or built again.
      */
     private void checkForTimeChange() {
         if (System.nanoTime() > lastTimeChange + 30e9) { //1 hour every 30 seconds
@@ -758,6 +745,60 @@ public final class Main extends SimpleApplication {
             lastTimeChange = System.nanoTime();
             checkForMobSpawn();
         }
+        float time = currentGame.getTime() + (float) Math.min(1, (System.nanoTime() - lastTimeChange) / 30e9); //Including how far it is into the hour
+        Light.setTimeOfDay(time);
+        blockMaterial.setFloat("Daylight", Light.getDaylight());
+    }
+
+    /**
+     * Checks if the game should be autosaved, and if so takes a snapshot of
+     * what changed since the last save then writes it in another Thread. Only
+     * the snapshot is taken in the main Thread, so the game does not freeze
+     * while it is written.
+     */
+    private void checkForAutosave() {
+        if (!SAVE_ENABLED || System.nanoTime() < lastAutosave + AUTOSAVE_INTERVAL * 1e9
+                || (autosaveFuture != null && !autosaveFuture.isDone())
+                || currentGame.getPlayer().getHealthBar().getHealth() <= 0) { //Not time yet, still writing the last one, or dead
+            return;
+        }
+        lastAutosave = System.nanoTime();
+        final WorldSnapshot snapshot;
+        try {
+            snapshot = new WorldSnapshot(currentGame, worldStorage);
+        } catch (IOException ex) {
+            Logger.getLogger(Main.class.getName()).log(Level.SEVERE, null, ex);
+            return;
+        }
+        if (snapshot.isEmpty()) { //Nothing changed since the last save
+            return;
+        }
+        autosaveFuture = executor.submit(new Runnable() {
+            public void run() {
+                try {
+                    snapshot.write(Compression.FASTEST, "Autosaved");
+                } catch (IOException ex) {
+                    Logger.getLogger(Main.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the edits made since the last time to the journal in another
+     * Thread, so the main Thread never waits on the disk for an edit and a
+     * crash loses at most the edits of the last few frames.
+     */
+    private void checkForJournalFlush() {
+        if (!SAVE_ENABLED || (journalFuture != null && !journalFuture.isDone()) || !worldStorage.hasPendingEdits()) { //Nothing to write, or still writing
+            return;
+        }
+        final WorldStorage storage = worldStorage;
+        journalFuture = executor.submit(new Runnable() {
+            public void run() {
+                storage.flushJournal();
+            }
+        });
     }
 
     /**
@@ -774,24 +815,34 @@ public final class Main extends SimpleApplication {
     }
 
     /**
-     * Checks every Chunk to see if there are any threads that needs to be
-     * checked on.
+     * Checks every loaded Chunk to see if there are any threads that needs to
+     * be checked on.
      */
     private void checkOnChunkThreads() {
-        for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
+        int renderDistance = chunkStreamer.getRenderDistance();
+        for (int i = -renderDistance; i <= renderDistance; i++) {
+            for (int j = -renderDistance; j <= renderDistance; j++) {
                 Chunk chunk = currentGame.getChunk(currentGame.getCurrentChunkX() + i, currentGame.getCurrentChunkY() + j);
-                try {
-                    if (chunk.getUpdateCollisionFuture() != null) { //If there is a thread updating the chunk's shape
-                        chunk.updateCollisionShape(); //Checks on the thread to see if the task is finished
-                    }
-                } catch (NullPointerException e) {
-                    Logger.getLogger(Main.class.getName()).log(Level.SEVERE, null, e);
+                if (chunk != null && chunk.getUpdateCollisionFuture() != null) { //If there is a thread updating the chunk's shape
+                    chunk.updateCollisionShape(); //Checks on the thread to see if the task is finished
                 }
             }
         }
     }
 
+    /**
+     * Changes how many Chunks are loaded around the player, and moves the far
+     * plane of the camera so that the Chunks at the edge can be seen.
+     *
+     * @param renderDistance The amount of Chunks loaded on each side of the
+     * Chunk the player is on
+     */
+    public void setRenderDistance(int renderDistance) {
+        chunkStreamer.setRenderDistance(renderDistance);
+        float farPlane = Math.max(90, (chunkStreamer.getRenderDistance() + 0.5f) * MAX_BLOCKS);
+        cam.setFrustumPerspective(35, settings.getWidth() / settings.getHeight(), 0.2f, farPlane); //Adjusts frustrum near and far planes
+    }
+
     /**
      * Spawns mobs at the surface when the light of it is 2f or lower whenever
      * Chunks or time is changed.
@@ -805,13 +856,12 @@ public final class Main extends SimpleApplication {
             Chunk chunk = iterator.next();
             for (int i = 0; i < MAX_BLOCKS; i++) { //All x and z coordinates
                 for (int j = 0; j < MAX_BLOCKS; j++) {
-                    Block surfaceBlock = chunk.getBlock(i, chunk.getSurfaceHeight(i, j), j);
-                    if (surfaceBlock.getActualLightLevel() < 1.5f) { //Light is lower than 1.5f
-                        if (chunk.getBlock(surfaceBlock.getX(), surfaceBlock.getY() + 1, surfaceBlock.getZ()).getType() == 0
-                                && chunk.getBlock(surfaceBlock.getX(), surfaceBlock.getY() + 2, surfaceBlock.getZ()).getType() == 0) { //2 Air Blocks above
+                    int surfaceHeight = chunk.getSurfaceHeight(i, j);
+                    if (chunk.getLightLevel(i, surfaceHeight, j) < 6) { //Light is lower than level 6
+                        if (chunk.getType(i, surfaceHeight + 1, j) == 0 && chunk.getType(i, surfaceHeight + 2, j) == 0) { //2 Air Blocks above
                             if (Math.random() < 0.0002) { //Mob spawn chance
-                                currentGame.getMobs().add(new Zombie(surfaceBlock.getX() + chunk.getX() * MAX_BLOCKS,
-                                        surfaceBlock.getY() + 1, surfaceBlock.getZ() + chunk.getY() * MAX_BLOCKS));
+                                currentGame.getMobs().add(new Zombie(i + chunk.getX() * MAX_BLOCKS,
+                                        surfaceHeight + 1, j + chunk.getY() * MAX_BLOCKS));
                             }
                         }
                     }
@@ -855,40 +905,6 @@ public final class Main extends SimpleApplication {
         cam.setLocation(currentGame.getPlayer().getControl().getPhysicsLocation().add(0, 0.75f, 0)); //Changes view location when player moves
     }
 
-    /**
-     * If the thread for changing Chunks is not running, it checks if chunks
-     * need to be changed, otherwise it checks on the thread.
-     */
-    private void checkForChunkChange() {
-        if (future == null) {
-            if (!isOnCurrentChunk()) { //User is not on the chunk 
-                if (crossedChunkTime == 0) { //Was on the chunk the previous tick
-                    crossedChunkTime = System.currentTimeMillis(); //Records the time it was crossed
-                } else if (System.currentTimeMillis() - crossedChunkTime > 500) { //If the player crossed over for 0.5 sec consecutively
-                    //Determines the delta of the new chunk location
-                    if (currentGame.getPlayer().getControl().getPhysicsLocation().x < currentGame.getCurrentChunkX() * MAX_BLOCKS) { //-1 in the X axis
-                        chunkXModifier = -1;
-                        chunkYModifier = 0;
-                    } else if (currentGame.getPlayer().getControl().getPhysicsLocation().x >= (currentGame.getCurrentChunkX() + 1) * MAX_BLOCKS) { //+1 in the Y axis
-                        chunkXModifier = 1;
-                        chunkYModifier = 0;
-                    } else if (currentGame.getPlayer().getControl().getPhysicsLocation().z < currentGame.getCurrentChunkY() * MAX_BLOCKS) { //-1 in Y axis
-                        chunkXModifier = 0;
-                        chunkYModifier = -1;
-                    } else if (currentGame.getPlayer().getControl().getPhysicsLocation().z >= (currentGame.getCurrentChunkY() + 1) * MAX_BLOCKS) { //+1 in Y axis
-                        chunkXModifier = 0;
-                        chunkYModifier = 1;
-                    }
-                    changeChunks(); //Starts a new thread to generate/destroy the chunks
-                }
-            } else { //Went back to current chunk
-                crossedChunkTime = 0; //Resets timer
-            }
-        } else {
-            changeChunks(); //Checks on the progress 
-        }
-    }
-
     /**
      * Attaches crosshairs at the center of the screen to the guiNode. Should
      * only be called when the application starts.
@@ -931,8 +947,11 @@ public final class Main extends SimpleApplication {
         inputManager.addMapping("8", new KeyTrigger(KeyInput.KEY_8));
         inputManager.addMapping("9", new KeyTrigger(KeyInput.KEY_9));
         inputManager.addMapping("ESCAPE", new KeyTrigger(KeyInput.KEY_ESCAPE));
+        inputManager.addMapping("RENDER_DISTANCE_UP", new KeyTrigger(KeyInput.KEY_EQUALS));
+        inputManager.addMapping("RENDER_DISTANCE_DOWN", new KeyTrigger(KeyInput.KEY_MINUS));
         inputManager.addListener(actionListener, "JUMP", "LEFT", "FORWARDS", "BACKWARDS", "RIGHT", "RIGHT_CLICK", "LEFT_CLICK",
-                "0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "INVENTORY", "ESCAPE", "DROP"); //Adds all the bindings to the actionListener
+                "0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "INVENTORY", "ESCAPE", "DROP",
+                "RENDER_DISTANCE_UP", "RENDER_DISTANCE_DOWN"); //Adds all the bindings to the actionListener
         inputManager.addListener(analogListener, "LEFT_CLICK");
     }//End of setupKeys
 
@@ -1031,6 +1050,15 @@ public final class Main extends SimpleApplication {
         materials[Item.WORKBENCH].setTexture("DiffuseMap", assetManager.loadTexture("Textures/workbench.png"));
         materials[Item.FURNACE].setTexture("DiffuseMap", assetManager.loadTexture("Textures/furnace.png"));
         materials[Item.TORCH].setTexture("DiffuseMap", assetManager.loadTexture("Textures/torch.png"));
+        //Puts the textures of every type into 1 texture array so all the chunk meshes share a single material
+        ArrayList<Image> images = new ArrayList<Image>();
+        for (int i = 0; i <= Item.TORCH; i++) { //The layer of each texture is the type
+            images.add(materials[i].getTextureParam("DiffuseMap").getTextureValue().getImage());
+        }
+        TextureArray textures = new TextureArray(images);
+        textures.setWrap(Texture.WrapMode.Repeat); //Merged faces repeat the texture once per block
+        blockMaterial = new Material(assetManager, "MatDefs/Block.j3md");
+        blockMaterial.setTexture("Textures", textures);
 
         blockPrototypes[Item.AIR] = new Block(materials[Item.AIR], Item.AIR, Item.NAN, Block.AIR_BASED);
         blockPrototypes[Item.DIRT] = new Block(materials[Item.DIRT], Item.DIRT, Block.DIRT_BASED);
@@ -1098,36 +1126,6 @@ public final class Main extends SimpleApplication {
         viewPort.addProcessor(filterProcessor);
     }
 
-    /**
-     * Starts a thread to change which chunks are loaded, or checks on the
-     * progress if already done so. If it is being started, chunkXModifier and
-     * chunkYModifier must be adjusted to define how the loaded chunks will
-     * change.
-     */
-    private void changeChunks() {
-        try {
-            if (future == null) { //If the thread has not begun
-                future = executor.submit(changeChunks); //Starts the thread running the runnable task
-            } else { //Checks on the thread
-                //Get the waylist when its done
-                if (future.isDone()) { //If it finished loading the thread, adds chunk to the world
-                    crossedChunkTime = 0; //Resets timer
-                    //Adjusts the game variables to change the current middle chunk
-                    currentGame.setCurrentChunkX(currentGame.getCurrentChunkX() + chunkXModifier);
-                    currentGame.setCurrentChunkY(currentGame.getCurrentChunkY() + chunkYModifier);
-                    future = null;
-                    despawnMobs();
-                    checkForMobSpawn();
-                } else if (future.isCancelled()) { //Canceled for some reason
-                    Logger.getLogger(Main.class.getName()).log(Level.SEVERE, null, "changeChunks was CANCELLED");
-                    future = null;
-                }
-            }
-        } catch (Exception e) { //One of the dozens of exeption was thrown
-            Logger.getLogger(Main.class.getName()).log(Level.SEVERE, null, e);
-        }
-    }
-
     /**
      * Updates every Mob on the map. TODO: CHANGE THIS INTO CUSTOM CONTROLS.
      */
@@ -1165,15 +1163,28 @@ public final class Main extends SimpleApplication {
 
     /**
      * Called to read a file containing a Game object, and assign the Object
-     * obtained to currentGame. Should only be called at the start of the
-     * application.
+     * obtained to currentGame, after putting back any edits in the journal that
+     * were not saved. Only the Game itself and the 3x3 Chunks around the player
+     * are loaded before the first frame, so the time it takes does not grow
+     * with the size of the world. If it cannot be loaded, the world is moved
+     * aside rather than deleted, and a new Game is started. Should only be
+     * called at the start of the application.
      */
     private void load() {
         try {
             //Loads from a saved game
-            ObjectInputStream input = new ObjectInputStream(new FileInputStream("World.sav"));
+            long startTime = System.nanoTime();
+            int replayed = worldStorage.replayJournals(); //Puts back the edits that were not saved before a crash
+            if (replayed > 0) {
+                Logger.getLogger(Main.class.getName()).log(Level.INFO, "Replayed {0} edits from the journal", replayed);
+            }
+            ObjectInputStream input = new ObjectInputStream(new FileInputStream(worldStorage.getLevelFile()));
             currentGame = (Game) input.readObject();
             input.close();
+            currentGame.loadSpawnChunks();
+            Logger.getLogger(Main.class.getName()).log(Level.INFO, "Loaded the spawn area in {0} ms",
+                    (System.nanoTime() - startTime) / 1000000);
+            Light.updateLights(); //Lights up the spawn area
             return;
         } //End of load
         catch (IOException ex) {
@@ -1181,27 +1192,72 @@ public final class Main extends SimpleApplication {
         } catch (ClassNotFoundException ex) {
             Logger.getLogger(Main.class.getName()).log(Level.SEVERE, null, ex);
         }
-        //Something went wrong; will not create a new Game
-        currentGame = new Game();
+        //Something went wrong; the world is moved aside instead of deleted, so it can still be recovered
+        try {
+            File aside = worldStorage.moveAside();
+            if (aside != null) {
+                Logger.getLogger(Main.class.getName()).log(Level.SEVERE, "Could not load the world; it was moved to {0}", aside);
+            }
+        } catch (IOException ex) { //Saves the new Game somewhere else, so nothing is overwritten
+            worldStorage = new WorldStorage(new File("World." + System.currentTimeMillis()));
+            Logger.getLogger(Main.class.getName()).log(Level.SEVERE, "Could not move the world aside; the new Game is saved in " + worldStorage.getLevelFile().getParent(), ex);
+        }
+        startNewGame();
     }//End of load
 
+    /**
+     * Creates a new Game as the current Game, and deletes the saved world that
+     * it replaces so it's Chunks are not loaded into the new world.
+     */
+    private void createNewGame() {
+        worldStorage.delete();
+        startNewGame();
+    }
+
+    /**
+     * Starts a new Game as the current Game, and writes it's level file right
+     * away, so the journals of the edits made before the first save have a
+     * world to be replayed into if the game crashes.
+     */
+    private void startNewGame() {
+        currentGame = new Game();
+        if (SAVE_ENABLED) {
+            try {
+                new WorldSnapshot(currentGame, worldStorage).write(Compression.FASTEST, "Created");
+            } catch (IOException ex) {
+                Logger.getLogger(Main.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+        Light.updateLights(); //Lights up the spawn area
+    }
+
     /**
      * Called whenever the program is PROPERLY exited; saves the current Game to
-     * a file if SAVE_ENABLED is true, or else it does nothing.
+     * the level file and every Chunk that was edited to it's region file (only
+     * what changed since the last save) if SAVE_ENABLED is true, or else it
+     * does nothing.
      */
     @Override
     public void stop() {
         listener.setVolume(0); //No annoying sounds
-        if (SAVE_ENABLED && currentGame.getChunk(0, 0).getBlock(0, 0, 1) != null
+        if (SAVE_ENABLED && currentGame != null
+                && currentGame.getChunk(currentGame.getCurrentChunkX(), currentGame.getCurrentChunkY()) != null
                 && currentGame.getPlayer().getHealthBar().getHealth() > 0) { //If saving is enabled and the Game loaded properly and player is not dead
-            try { //Trys to save the game to a file
-                ObjectOutputStream save = new ObjectOutputStream(new FileOutputStream("World.sav"));
-                save.writeObject(currentGame);
-                save.flush();
-                save.close();
+            if (autosaveFuture != null) { //Lets the autosave finish so it does not overwrite this save
+                try {
+                    autosaveFuture.get();
+                } catch (InterruptedException ex) {
+                    Logger.getLogger(Main.class.getName()).log(Level.SEVERE, null, ex);
+                } catch (ExecutionException ex) {
+                    Logger.getLogger(Main.class.getName()).log(Level.SEVERE, null, ex);
+                }
+            }
+            try { //Trys to save what changed to the files
+                new WorldSnapshot(currentGame, worldStorage).write(Compression.SMALLEST, "Saved");
             } catch (IOException ex) {
                 Logger.getLogger(Main.class.getName()).log(Level.ALL, null, ex);
             }
+            worldStorage.close();
         }
         super.stop();
     }//End of stop
@@ -1216,22 +1272,25 @@ public final class Main extends SimpleApplication {
     public void destroy() {
         super.destroy();
         executor.shutdown(); //If the main thread is stopped, all other threads will stop as well
+        if (chunkStreamer != null) { //The game was started
+            chunkStreamer.shutdown();
+        }
     }//End of destroy
 
     /**
-     * Evaluates whether or not the player is currently on or near chunk
-     * [CurrentChunkX, currentChunkY] in the world.
+     * Finds the Block that was hit by a ray. As the faces of a Chunk's mesh are
+     * no longer their own Geometry, the contact point is moved slightly further
+     * along the ray so that it is inside the Block, and is then rounded to the
+     * center of that Block.
      *
-     * @return A boolean representing if the player is on the current chunk
+     * @param collision The closest collision of the ray
+     * @param ray The ray that was casted
+     * @return The location of the center of the Block that was hit
      */
-    private static boolean isOnCurrentChunk() {
-        if (currentGame.getPlayer().getControl().getPhysicsLocation().x >= currentGame.getCurrentChunkX() * MAX_BLOCKS - 10
-                && currentGame.getPlayer().getControl().getPhysicsLocation().x < (currentGame.getCurrentChunkX() + 1) * MAX_BLOCKS + 10
-                && currentGame.getPlayer().getControl().getPhysicsLocation().z >= currentGame.getCurrentChunkY() * MAX_BLOCKS - 10
-                && currentGame.getPlayer().getControl().getPhysicsLocation().z < (currentGame.getCurrentChunkY() + 1) * MAX_BLOCKS + 10) {
-            return true;
-        }
-        return false;
+    private static Vector3f getHitBlockLocation(CollisionResult collision, Ray ray) {
+        Vector3f inside = collision.getContactPoint().add(ray.getDirection().mult(0.01f));
+        return new Vector3f(Math.round(inside.x), Math.round(inside.y), Math.round(inside.z));
     }
+
 }//End of Main Class
 
@@ -0,0 +1,142 @@
+package alston.minecraft;
+
+/**
+ * Creates coherent value noise from a seed, used to generate terrain. The
+ * value at any point only depends on the seed and the point, and nothing is
+ * kept between calls, so any thread can generate any part of the world at the
+ * same time as the others and the same seed will always give the same world.
+ * The noise is made by giving every point with integer coordinates a random
+ * value from a hash, and smoothly blending the values of the points around
+ * the given coordinates.
+ *
+ * @author Alston
+ * @version RTM
+ */
+public final class Noise {
+
+    /**
+     * Not to be instantiated.
+     */
+    private Noise() {
+    }
+
+    /**
+     * Mixes a seed and coordinates into a single well distributed long, so
+     * points beside each other have completely unrelated hashes.
+     *
+     * @param seed The seed of the world
+     * @param x The x coordinate
+     * @param y The y coordinate
+     * @param z The z coordinate
+     * @return The hash of the seed and coordinates
+     */
+    public static long hash(long seed, int x, int y, int z) {
+        long hash = seed;
+        hash = mix(hash + x * 0x9E3779B97F4A7C15L);
+        hash = mix(hash + y * 0xC2B2AE3D27D4EB4FL);
+        hash = mix(hash + z * 0x165667B19E3779F9L);
+        return hash;
+    }
+
+    /**
+     * Scrambles the bits of a long (the finalizer of SplitMix64).
+     *
+     * @param value The long to scramble
+     * @return The scrambled long
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     *
+     * @param seed The seed of the world
+     * @param x The x coordinate of the point
+     * @param y The y coordinate of the point
+     * @param z The z coordinate of the point
+     * @return The random value of the point, from 0 to 1
+     */
+    private static float valueAt(long seed, int x, int y, int z) {
+        return (hash(seed, x, y, z) >>> 40) / (float) (1 << 24);
+    }
+
+    /**
+     * Eases the fraction between two points so the noise does not have any
+     * sharp edges.
+     *
+     * @param t The fraction from 0 to 1
+     * @return The eased fraction
+     */
+    private static float fade(float t) {
+        return t * t * (3 - 2 * t);
+    }
+
+    /**
+     *
+     * @param a The value at 0
+     * @param b The value at 1
+     * @param t The fraction between them
+     * @return The value at t
+     */
+    private static float lerp(float a, float b, float t) {
+        return a + (b - a) * t;
+    }
+
+    /**
+     * Gets the 2D noise at the given point.
+     *
+     * @param seed The seed of the world
+     * @param x The x coordinate of the point
+     * @param z The z coordinate of the point
+     * @return The noise at the point, from 0 to 1
+     */
+    public static float noise(long seed, float x, float z) {
+        int x0 = (int) Math.floor(x), z0 = (int) Math.floor(z);
+        float tx = fade(x - x0), tz = fade(z - z0);
+        return lerp(lerp(valueAt(seed, x0, 0, z0), valueAt(seed, x0 + 1, 0, z0), tx),
+                lerp(valueAt(seed, x0, 0, z0 + 1), valueAt(seed, x0 + 1, 0, z0 + 1), tx), tz);
+    }
+
+    /**
+     * Gets the 3D noise at the given point.
+     *
+     * @param seed The seed of the world
+     * @param x The x coordinate of the point
+     * @param y The y coordinate of the point
+     * @param z The z coordinate of the point
+     * @return The noise at the point, from 0 to 1
+     */
+    public static float noise(long seed, float x, float y, float z) {
+        int x0 = (int) Math.floor(x), y0 = (int) Math.floor(y), z0 = (int) Math.floor(z);
+        float tx = fade(x - x0), ty = fade(y - y0), tz = fade(z - z0);
+        float bottom = lerp(lerp(valueAt(seed, x0, y0, z0), valueAt(seed, x0 + 1, y0, z0), tx),
+                lerp(valueAt(seed, x0, y0, z0 + 1), valueAt(seed, x0 + 1, y0, z0 + 1), tx), tz);
+        float top = lerp(lerp(valueAt(seed, x0, y0 + 1, z0), valueAt(seed, x0 + 1, y0 + 1, z0), tx),
+                lerp(valueAt(seed, x0, y0 + 1, z0 + 1), valueAt(seed, x0 + 1, y0 + 1, z0 + 1), tx), tz);
+        return lerp(bottom, top, ty);
+    }
+
+    /**
+     * Adds together octaves of 2D noise, each with twice the detail and half
+     * the strength of the last, to give rolling hills with small bumps.
+     *
+     * @param seed The seed of the world
+     * @param x The x coordinate of the point
+     * @param z The z coordinate of the point
+     * @param octaves The amount of octaves to add
+     * @return The noise at the point, from 0 to 1
+     */
+    public static float fractal(long seed, float x, float z, int octaves) {
+        float total = 0, strength = 1, totalStrength = 0;
+        for (int i = 0; i < octaves; i++) {
+            total += noise(seed + i, x, z) * strength;
+            totalStrength += strength;
+            strength /= 2;
+            x *= 2;
+            z *= 2;
+        }
+        return total / totalStrength;
+    }
+}
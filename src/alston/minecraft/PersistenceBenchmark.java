@@ -0,0 +1,230 @@
+package alston.minecraft;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures how long it takes to save and load worlds of different sizes thru
+ * the WorldStorage, without starting the game. A world of the given amount of
+ * Chunks is generated around the origin with the Chunk generator, dug into at
+ * random the way a player would, then saved and loaded again, and the wall
+ * time, chunks per second, bytes on disk, bytes allocated and peak heap of
+ * each are printed. Run it with "ant benchmark".
+ *
+ * @author Alston
+ * @version RTM
+ */
+public final class PersistenceBenchmark {
+
+    private static final long SEED = 1234567890L; //The same world every run, so runs can be compared
+    private static final int DEFAULT_CHUNKS = 256;
+    private static final int DEFAULT_EDITS = 2000; //Blocks changed in each Chunk
+
+    /**
+     * Not to be instantiated.
+     */
+    private PersistenceBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args The amount of Chunks in the world and the amount of Blocks
+     * changed in each, both optional
+     * @throws Exception Something went wrong while saving or loading
+     */
+    public static void main(String[] args) throws Exception {
+        int chunkCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CHUNKS;
+        int editCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_EDITS;
+        File directory = new File(System.getProperty("java.io.tmpdir"), "BlockSurvivalBenchmark");
+        WorldStorage storage = new WorldStorage(directory);
+        storage.delete(); //Anything left from the last run
+        System.out.println("Generating " + chunkCount + " chunks with " + editCount + " edits each on "
+                + Runtime.getRuntime().availableProcessors() + " cores");
+        List<Chunk> chunks = generate(chunkCount, editCount);
+        //The workers are kept running until the measurements are printed, so their allocations are counted
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        List<Chunk> loaded;
+        try {
+            //Save
+            Measurement measurement = new Measurement();
+            storage.resetStatistics();
+            storage.writeChunks(chunks, Compression.FASTEST, workers);
+            storage.close();
+            measurement.print("Save", chunkCount, directory);
+            System.out.println("  " + storage.getStatistics());
+            //Load
+            measurement = new Measurement();
+            loaded = load(new WorldStorage(directory), chunks, workers);
+            measurement.print("Load", loaded.size(), directory);
+        } finally {
+            workers.shutdownNow();
+        }
+        for (int i = 0; i < chunks.size(); i++) { //Makes sure it measured something that works
+            if (!loaded.get(i).getEdits().equals(chunks.get(i).getEdits())) {
+                throw new IOException("Chunk (" + chunks.get(i).getX() + ", " + chunks.get(i).getY() + ") did not load the same");
+            }
+        }
+        storage.delete();
+    }
+
+    /**
+     * Generates the Chunks in a square around the origin, then changes Blocks
+     * in each into air in short rows like tunnels dug by a player.
+     *
+     * @param chunkCount The amount of Chunks
+     * @param editCount The amount of Blocks changed in each
+     * @return The Chunks
+     */
+    private static List<Chunk> generate(int chunkCount, int editCount) {
+        int side = (int) Math.ceil(Math.sqrt(chunkCount));
+        Random random = new Random(SEED);
+        ArrayList<Chunk> chunks = new ArrayList<Chunk>();
+        for (int i = 0; i < chunkCount; i++) {
+            Chunk chunk = new Chunk(i % side - side / 2, i / side - side / 2);
+            chunk.setupFromFile(SEED); //Only generates the terrain; nothing is added to the scene
+            int blocks = Main.MAX_BLOCKS * Main.MAX_BLOCKS * Main.MAX_BLOCKS_Y;
+            for (int edits = 0; edits < editCount;) {
+                int index = random.nextInt(blocks);
+                int length = Math.min(1 + random.nextInt(8), blocks - index);
+                for (int j = 0; j < length; j++) { //Edits are made thru the map, as setType() would journal them
+                    chunk.getEdits().put(index + j, Item.AIR);
+                }
+                edits += length;
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * Reads and sets up the Chunks on all the cores, the way the ChunkStreamer
+     * loads them.
+     *
+     * @param storage Where the world is saved
+     * @param chunks The Chunks that were saved
+     * @param loaders The Threads that load the Chunks
+     * @return The Chunks that were loaded, in the same order
+     * @throws Exception Something went wrong while loading
+     */
+    private static List<Chunk> load(final WorldStorage storage, List<Chunk> chunks, ExecutorService loaders) throws Exception {
+        ArrayList<Future<Chunk>> futures = new ArrayList<Future<Chunk>>();
+        for (int i = 0; i < chunks.size(); i++) {
+            final int x = chunks.get(i).getX(), y = chunks.get(i).getY();
+            futures.add(loaders.submit(new Callable<Chunk>() {
+                public Chunk call() throws IOException {
+                    Chunk chunk = storage.readChunk(x, y);
+                    if (chunk == null) {
+                        throw new IOException("Chunk (" + x + ", " + y + ") was not saved");
+                    }
+                    chunk.setupFromFile(SEED);
+                    return chunk;
+                }
+            }));
+        }
+        ArrayList<Chunk> loaded = new ArrayList<Chunk>();
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                loaded.add(futures.get(i).get());
+            }
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        } finally {
+            storage.close();
+        }
+        return loaded;
+    }
+
+    /**
+     * Keeps track of the time, allocations and heap from when it is created.
+     * Allocations are only counted for Threads that are still running when it
+     * is printed.
+     */
+    private static class Measurement {
+
+        private final long startTime;
+        private final long startAllocated;
+
+        /**
+         * Starts measuring.
+         */
+        public Measurement() {
+            System.gc(); //So the peak is not from what came before
+            List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+            for (int i = 0; i < pools.size(); i++) {
+                pools.get(i).resetPeakUsage();
+            }
+            startAllocated = getAllocatedBytes();
+            startTime = System.nanoTime();
+        }
+
+        /**
+         * Prints what was measured since it was created.
+         *
+         * @param name The name of what was measured
+         * @param chunkCount The amount of Chunks that were saved or loaded
+         * @param directory The directory of the world
+         */
+        public void print(String name, int chunkCount, File directory) {
+            long time = System.nanoTime() - startTime;
+            long allocated = getAllocatedBytes() - startAllocated;
+            long peakHeap = 0;
+            List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+            for (int i = 0; i < pools.size(); i++) {
+                if (pools.get(i).getType() == MemoryType.HEAP) {
+                    peakHeap += pools.get(i).getPeakUsage().getUsed();
+                }
+            }
+            System.out.println(name + ": " + time / 1000000 + " ms, " + (long) (chunkCount * 1e9 / Math.max(1, time))
+                    + " chunks/s, " + getSize(directory) / 1024 + " KB on disk, "
+                    + (allocated < 0 ? "?" : Long.toString(allocated / (1024 * 1024))) + " MB allocated, "
+                    + peakHeap / (1024 * 1024) + " MB peak heap");
+        }
+
+        /**
+         *
+         * @return The bytes allocated by every running Thread, or -1 if the
+         * JVM cannot tell
+         */
+        private static long getAllocatedBytes() {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+                return -1;
+            }
+            long[] allocated = ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threads.getAllThreadIds());
+            long total = 0;
+            for (int i = 0; i < allocated.length; i++) {
+                if (allocated[i] > 0) { //-1 for Threads that ended
+                    total += allocated[i];
+                }
+            }
+            return total;
+        }
+
+        /**
+         *
+         * @param directory A directory
+         * @return The total size of the files in it
+         */
+        private static long getSize(File directory) {
+            File[] files = directory.listFiles();
+            long size = 0;
+            for (int i = 0; files != null && i < files.length; i++) {
+                size += files[i].length();
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package alston.minecraft;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.BitSet;
+
+/**
+ * A file holding the saved Chunks of a SIZE * SIZE square of Chunks in the
+ * world. The file is split into sectors of SECTOR_BYTES; the first sector
+ * holds a table with the first sector and the length of the record of every
+ * Chunk in the region (or 0 if it was never saved), and the records follow.
+ * A Chunk can be read or written without touching the other Chunks in the
+ * file. A record is always written to sectors that are free, and only then
+ * does the table point to it, so a crash while writing leaves the old record
+ * in place; the sectors of the old record are free to be used after.
+ * Records are read through a memory mapping of the file, so reading a Chunk
+ * only pages in its sectors instead of copying them through a stream.
+ *
+ * @author Alston
+ * @version RTM
+ */
+public class RegionFile {
+
+    /**
+     * The amount of bits of a Chunk coordinate that are within the region.
+     */
+    public static final int SHIFT = 4;
+    /**
+     * The amount of Chunks a region is on each side.
+     */
+    public static final int SIZE = 1 << SHIFT;
+    private static final int SECTOR_BYTES = 4096;
+    private static final int HEADER_SECTORS = 1; //SIZE * SIZE entries of 8 bytes fit in 1 sector
+    private final RandomAccessFile file;
+    private final int[] sectorOffsets; //The first sector of the record of every chunk; 0 if there is none
+    private final int[] lengths; //The length of the record of every chunk in bytes
+    private int sectorCount; //The amount of sectors in the file
+    private final BitSet usedSectors; //The sectors that hold the table or a record
+    private MappedByteBuffer mapping; //Read-only mapping of the file; mapped again once the file grows past it
+
+    /**
+     * Opens the region file, creating an empty one if it does not exist yet.
+     *
+     * @param path The location of the file
+     * @throws IOException Something went wrong while reading the table
+     */
+    public RegionFile(File path) throws IOException {
+        file = new RandomAccessFile(path, "rw");
+        sectorOffsets = new int[SIZE * SIZE];
+        lengths = new int[SIZE * SIZE];
+        if (file.length() < HEADER_SECTORS * SECTOR_BYTES) { //New file; writes an empty table
+            file.setLength(HEADER_SECTORS * SECTOR_BYTES);
+        } else {
+            file.seek(0);
+            for (int i = 0; i < sectorOffsets.length; i++) {
+                sectorOffsets[i] = file.readInt();
+                lengths[i] = file.readInt();
+            }
+        }
+        sectorCount = (int) ((file.length() + SECTOR_BYTES - 1) / SECTOR_BYTES);
+        usedSectors = new BitSet(sectorCount);
+        usedSectors.set(0, HEADER_SECTORS);
+        for (int i = 0; i < sectorOffsets.length; i++) {
+            if (sectorOffsets[i] != 0) {
+                usedSectors.set(sectorOffsets[i], sectorOffsets[i] + getSectorsNeeded(lengths[i]));
+            }
+        }
+    }
+
+    /**
+     *
+     * @param x The x coordinate of the Chunk within the region
+     * @param y The y coordinate of the Chunk within the region
+     * @return The index of the Chunk in the table
+     */
+    private static int getIndex(int x, int y) {
+        return y * SIZE + x;
+    }
+
+    /**
+     *
+     * @param length A length in bytes
+     * @return The amount of sectors needed to hold it
+     */
+    private static int getSectorsNeeded(int length) {
+        return (length + SECTOR_BYTES - 1) / SECTOR_BYTES;
+    }
+
+    /**
+     * Reads the record of the Chunk at the given coordinates.
+     *
+     * @param x The x coordinate of the Chunk within the region
+     * @param y The y coordinate of the Chunk within the region
+     * @return The record, as a view of the mapping of the file, or null if
+     * the Chunk was never saved
+     * @throws IOException Something went wrong while reading
+     */
+    public synchronized ByteBuffer read(int x, int y) throws IOException {
+        int index = getIndex(x, y);
+        if (sectorOffsets[index] == 0) { //Never saved
+            return null;
+        }
+        int start = sectorOffsets[index] * SECTOR_BYTES;
+        if (mapping == null || start + lengths[index] > mapping.capacity()) { //Written after it was mapped
+            mapping = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        }
+        ByteBuffer record = mapping.duplicate(); //Does not copy the data
+        record.position(start);
+        record.limit(start + lengths[index]);
+        return record.slice();
+    }
+
+    /**
+     * Finds the first run of free sectors that is long enough, which can run
+     * past the end of the file, and marks it as used.
+     *
+     * @param count The amount of sectors needed
+     * @return The first sector of the run
+     */
+    private int allocateSectors(int count) {
+        int start = usedSectors.nextClearBit(HEADER_SECTORS);
+        while (start < sectorCount) {
+            int end = usedSectors.nextSetBit(start);
+            if (end == -1 || end >= sectorCount) { //Free up to the end of the file
+                break;
+            }
+            if (end - start >= count) {
+                break;
+            }
+            start = usedSectors.nextClearBit(end);
+        }
+        sectorCount = Math.max(sectorCount, start + count);
+        usedSectors.set(start, start + count);
+        return start;
+    }
+
+    /**
+     * Writes the record of the Chunk at the given coordinates to free sectors,
+     * then points the table to it and frees the sectors of the old record.
+     *
+     * @param x The x coordinate of the Chunk within the region
+     * @param y The y coordinate of the Chunk within the region
+     * @param record The record of the Chunk
+     * @throws IOException Something went wrong while writing
+     */
+    public synchronized void write(int x, int y, byte[] record) throws IOException {
+        int index = getIndex(x, y);
+        int sectorOffset = allocateSectors(getSectorsNeeded(record.length));
+        file.seek((long) sectorOffset * SECTOR_BYTES);
+        file.write(record);
+        long padding = (long) sectorCount * SECTOR_BYTES - file.length();
+        if (padding > 0) { //Pads the last sector by writing, since a mapped file cannot be resized on every system
+            file.seek(file.length());
+            file.write(new byte[(int) padding]);
+        }
+        //Only updates the table once the record is written
+        file.seek(index * 8);
+        file.writeInt(sectorOffset);
+        file.writeInt(record.length);
+        if (sectorOffsets[index] != 0) { //The old record can be written over now
+            usedSectors.clear(sectorOffsets[index], sectorOffsets[index] + getSectorsNeeded(lengths[index]));
+        }
+        sectorOffsets[index] = sectorOffset;
+        lengths[index] = record.length;
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException Something went wrong while closing
+     */
+    public synchronized void close() throws IOException {
+        mapping = null; //Unmapped once it is garbage collected
+        file.close();
+    }
+}
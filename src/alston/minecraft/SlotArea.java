@@ -50,6 +50,7 @@ public abstract class SlotArea implements Serializable, Cloneable {
      * case that a SlotArea would no need this.
      */
     public void defaultPlace(Item item, int x, int y) {
+        markChanged();
         item.setSlotPosition(x, y);
         getItems()[x][y] = item;
         item.setParent(this);
@@ -98,6 +99,7 @@ public abstract class SlotArea implements Serializable, Cloneable {
      * @return True if Item was added, false if it could not
      */
     public boolean add(Item item) {
+        markChanged();
         for (int j = 0; j < 4; j++) { //Searches for other items of the same type
             for (int i = 0; i < 9; i++) {
                 if (items[i][j].getType() == item.getType() && items[i][j].getAmount() < items[i][j].getMaxAmount()) { //Same type and not full; Adds to amount then discards Item
@@ -128,6 +130,7 @@ public abstract class SlotArea implements Serializable, Cloneable {
      * @param y The y coordinate of the Item
      */
     public void remove(int x, int y) {
+        markChanged();
         items[x][y].detachFromAll();
         items[x][y] = new EmptyItem();
         place(items[x][y], x, y);
@@ -136,6 +139,16 @@ public abstract class SlotArea implements Serializable, Cloneable {
         }
     }
 
+    /**
+     * Marks the current Game as changed so the inventory is saved again; does
+     * nothing while the Game is still being created.
+     */
+    static void markChanged() {
+        if (Main.currentGame != null) {
+            Main.currentGame.markDirty();
+        }
+    }
+
     /**
      *
      * @return The Item contents of the slot area
@@ -17,7 +17,7 @@ public class Torch extends Block implements Serializable {
 
     //Private constant to represent the object when saving
     private static final long serialVersionUID = 1213424812949L;
-    private Light light;
+    private transient Light light; //Only exists while the Torch is in the world
 
     /**
      * Creates a new initial Torch; only call this if the protoype has not been
@@ -45,15 +45,18 @@ public class Torch extends Block implements Serializable {
     }
 
     @Override
-    public void setLocation(int x, int y, int z, Chunk parent) { //Adds a Light in addition to setting the location
-        super.setLocation(x, y, z, parent);
-        light = new Light(this, 4f, 0.3f);
-        Light.addPernamentLight(light);
+    public void addToWorld() { //Only lights up the surroundings once it is in the scene
+        if (light == null) {
+            light = new Light(this, Light.TORCH_LEVEL, Light.BLOCK_LIGHT);
+            Light.addPernamentLight(light);
+        }
     }
 
     @Override
-    public void changeToBlock(int type, boolean updatePhysics) {
-        super.changeToBlock(type, updatePhysics);
-        Light.removePernamentLight(light);
+    public void removeFromWorld() {
+        if (light != null) {
+            Light.removePernamentLight(light);
+            light = null;
+        }
     }
 }
@@ -162,10 +162,7 @@ public class Utility {
      * @param z The z component
      */
     public static synchronized Block getBlock(float x, float y, float z) {
-        return Main.currentGame.getChunk(Main.currentGame.getCurrentChunkX(), Main.currentGame.getCurrentChunkY())
-                .getBlock((int) x - Main.currentGame.getCurrentChunkX() * Main.MAX_BLOCKS,
-                (int) y, (int) z - Main.currentGame
-                .getCurrentChunkY() * Main.MAX_BLOCKS); //So the next part isn't really long
+        return Main.currentGame.getBlockOrNull((int) x, (int) y, (int) z);
     }
 
     /**
@@ -77,6 +77,7 @@ public class Window implements Serializable {
      * User left clicks when inventory is open.
      */
     public void leftClick() {
+        SlotArea.markChanged(); //The Items may be moved
         clickedItem = getMousedItem();
         if (clickedItem == null || clickedItem.getType() == Item.AIR) { //No Item/EmptyItem
             clickedItem = null;
@@ -96,6 +97,7 @@ public class Window implements Serializable {
      * Closes the inventory on the GUI.
      */
     public void close() {
+        SlotArea.markChanged(); //The Items may be moved
         //Drops all the Items in the crafting space 
         for (int i = 0; i < craftingSpace.getItems().length; i++) {
             for (int j = 0; j < craftingSpace.getItems()[0].length; j++) {
@@ -133,6 +135,7 @@ public class Window implements Serializable {
      * type, does nothing.
      */
     public void rightClick() {
+        SlotArea.markChanged(); //The Items may be moved
         if (clickedItem != null) { //User has clicked an Item; splits into 2 stack with one containing only 1
             Item collidedItem = getMousedItem();
             Item newItem = null;
@@ -194,6 +197,7 @@ public class Window implements Serializable {
      * User released on the inventory menu.
      */
     public void release() {
+        SlotArea.markChanged(); //The Items may be moved
         Item collidedItem = getMousedItem();
         if (clickedItem == null) { //Returns if there was never anything selected
             return;
@@ -0,0 +1,107 @@
+package alston.minecraft;
+
+import com.jme3.math.Vector3f;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A copy of everything in a Game that changed since it was last saved, taken
+ * by the main Thread so it can be written by any other Thread while the game
+ * keeps being played. The Game itself is written into bytes only if the
+ * inventory or time changed or the player moved, and only the Chunks that
+ * were edited since they were last written are copied. Once it is written,
+ * the Game and the Chunks are marked as saved up to the generation they had
+ * when the copy was taken.
+ *
+ * @author Alston
+ * @version RTM
+ */
+public class WorldSnapshot {
+
+    private final Game game;
+    private final WorldStorage storage; //Where the world is saved
+    private final byte[] level; //The Game written into bytes, or null if it did not change
+    private final int levelGeneration; //The generation of the Game when it was copied
+    private final Vector3f location; //The location of the player when it was copied
+    private final ArrayList<Chunk> chunks; //The Chunks that changed
+    private final ArrayList<Chunk> copies; //The copies of the Chunks that changed, in the same order
+    private final int journalNumber; //The last journal with edits that are in the copies
+
+    /**
+     * Takes a copy of everything in the Game that changed since it was last
+     * saved. Should be called by the main Thread.
+     *
+     * @param game The Game to copy
+     * @param storage Where the world is saved
+     * @throws IOException Something went wrong while writing the Game into
+     * bytes
+     */
+    public WorldSnapshot(Game game, WorldStorage storage) throws IOException {
+        this.game = game;
+        this.storage = storage;
+        journalNumber = storage.rotateJournal(); //Edits from now on are not in the copies
+        levelGeneration = game.getGeneration();
+        location = game.getPlayer().getControl().getPhysicsLocation();
+        if (game.isDirty()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream output = new ObjectOutputStream(bytes);
+            output.writeObject(game);
+            output.close();
+            level = bytes.toByteArray();
+        } else {
+            level = null;
+        }
+        chunks = new ArrayList<Chunk>();
+        copies = new ArrayList<Chunk>();
+        Iterator<Chunk> iterator = game.getChunks();
+        while (iterator.hasNext()) { //Chunks that were not edited are generated again instead
+            Chunk chunk = iterator.next();
+            if (chunk.isDirty()) {
+                chunks.add(chunk);
+                copies.add(chunk.snapshot());
+            }
+        }
+    }
+
+    /**
+     *
+     * @return If nothing changed since the Game was last saved
+     */
+    public boolean isEmpty() {
+        return level == null && chunks.isEmpty();
+    }
+
+    /**
+     * Writes every Chunk that changed and the level file (if the Game
+     * changed), then deletes the journals of the edits that were written and
+     * logs how long it took and how many bytes were written. Can be called by
+     * any Thread, but only one snapshot should be written at a time.
+     *
+     * @param compression How the Chunks are compressed
+     * @param description What kind of save it is, for logging
+     * @throws IOException Something went wrong while writing
+     */
+    public void write(Compression compression, String description) throws IOException {
+        long startTime = System.nanoTime();
+        storage.resetStatistics();
+        storage.writeChunks(copies, compression);
+        for (int i = 0; i < chunks.size(); i++) {
+            chunks.get(i).markSaved(copies.get(i).getGeneration());
+        }
+        if (level != null) {
+            storage.writeLevel(level);
+            game.markSaved(levelGeneration, location);
+        }
+        storage.deleteJournals(journalNumber); //Everything in them is saved now
+        long time = System.nanoTime() - startTime;
+        Logger.getLogger(WorldSnapshot.class.getName()).log(Level.INFO, "{0} {1} in {2} ms ({3} bytes written, {4} chunks/s)",
+                new Object[]{description, storage.getStatistics(), time / 1000000,
+                    (level == null ? 0 : level.length) + storage.getCompressedBytes(),
+                    time == 0 ? 0 : (long) (copies.size() * 1e9 / time)});
+    }
+}
@@ -0,0 +1,601 @@
+package alston.minecraft;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Saves and loads a world in a directory. The Game itself (the player, time,
+ * seed, mobs, etc.) is kept in a level file, while the Chunks are kept in
+ * RegionFiles that each hold a square of Chunks, so every Chunk can be read or
+ * written on it's own when it is needed rather than the whole world at once.
+ * Every record is compressed with a Compression before it is written, and the
+ * sizes and time taken are kept track of to compare Compressions.
+ * <p>
+ * Nothing is ever left half written if the game crashes: the level file is
+ * written to a temporary file that then replaces it, and a record in a
+ * RegionFile is written to free sectors before the table points to it. Every
+ * edit to a Chunk is also appended to a journal shortly after it is made; a
+ * journal is deleted once a save has written everything in it, and any
+ * journals left over from a crash are replayed into the region files before
+ * the world is loaded.
+ *
+ * @author Alston
+ * @version RTM
+ */
+public class WorldStorage {
+
+    private static final String LEVEL_FILE = "level.sav";
+    private static final String JOURNAL_PREFIX = "edits.", JOURNAL_SUFFIX = ".log"; //Journals are named edits.<number>.log
+    private final File directory;
+    private final HashMap<Long, RegionFile> regions; //The region files that are open, by packed region coordinates
+    //Statistics of the chunks written since they were reset
+    private final Object statisticsLock = new Object(); //Guards the statistics, so encoders never wait on the journal
+    private int chunksWritten;
+    private long uncompressedBytes, compressedBytes;
+    private long compressionTime; //In nanoseconds
+    private DataOutputStream journal; //The journal being appended to; opened on the first edit
+    private final Object pendingLock = new Object(); //Guards the pending edits, so logging an edit never waits on the disk
+    private final ByteArrayOutputStream pendingEdits = new ByteArrayOutputStream(); //Edits not written to the journal yet
+    private final DataOutputStream pendingOutput = new DataOutputStream(pendingEdits);
+    private int journalNumber; //The number of the journal being appended to
+
+    /**
+     * Creates a storage for the world in the given directory; nothing is
+     * opened or created until it is used.
+     *
+     * @param directory The directory of the world
+     */
+    public WorldStorage(File directory) {
+        this.directory = directory;
+        regions = new HashMap<Long, RegionFile>();
+    }
+
+    /**
+     *
+     * @return The file that the Game is saved in; the temporary file if the
+     * game crashed right before it replaced the level file
+     */
+    public File getLevelFile() {
+        File file = new File(directory, LEVEL_FILE), temp = new File(directory, LEVEL_FILE + ".tmp");
+        if (!file.exists() && temp.exists()) {
+            return temp;
+        }
+        return file;
+    }
+
+    /**
+     * Writes the Game to a temporary file, then replaces the level file with
+     * it, so the level file is never left half written.
+     *
+     * @param level The Game written into bytes
+     * @throws IOException Something went wrong while writing
+     */
+    public void writeLevel(byte[] level) throws IOException {
+        File file = new File(directory, LEVEL_FILE), temp = new File(directory, LEVEL_FILE + ".tmp");
+        directory.mkdirs();
+        FileOutputStream output = new FileOutputStream(temp);
+        try {
+            output.write(level);
+            output.getFD().sync(); //On the disk before it replaces the old one
+        } finally {
+            output.close();
+        }
+        if (!temp.renameTo(file)) { //Some systems cannot rename over a file that exists
+            if (!file.delete() || !temp.renameTo(file)) {
+                throw new IOException("Could not replace " + file);
+            }
+        }
+    }
+
+    /**
+     * Gets the region file that the Chunk at the given coordinates is in.
+     *
+     * @param x The x coordinate of the Chunk
+     * @param y The y coordinate of the Chunk
+     * @param create If the file should be created if it does not exist
+     * @return The region file, or null if it does not exist and was not created
+     * @throws IOException Something went wrong while opening the file
+     */
+    private synchronized RegionFile getRegion(int x, int y, boolean create) throws IOException {
+        int regionX = x >> RegionFile.SHIFT, regionY = y >> RegionFile.SHIFT; //Rounds down for negatives too
+        long key = ChunkMap.pack(regionX, regionY);
+        RegionFile region = regions.get(key);
+        if (region == null) {
+            File path = new File(directory, "r." + regionX + "." + regionY + ".dat");
+            if (!path.exists()) {
+                if (!create) {
+                    return null;
+                }
+                directory.mkdirs();
+            }
+            region = new RegionFile(path);
+            regions.put(key, region);
+        }
+        return region;
+    }
+
+    /**
+     * Reads the Chunk at the given coordinates; the Chunk still has to be set
+     * up with setupFromFile().
+     *
+     * @param x The x coordinate of the Chunk
+     * @param y The y coordinate of the Chunk
+     * @return The Chunk, or null if it was never saved
+     * @throws IOException Something went wrong while reading
+     */
+    public Chunk readChunk(int x, int y) throws IOException {
+        RegionFile region = getRegion(x, y, false);
+        if (region == null) {
+            return null;
+        }
+        ByteBuffer record = region.read(x & (RegionFile.SIZE - 1), y & (RegionFile.SIZE - 1));
+        if (record == null) {
+            return null;
+        }
+        Compression compression = getCompression(record.get() & 0xFF); //The first byte is the id of the compression
+        return ChunkCodec.decode(compression.decompress(record.slice()));
+    }
+
+    /**
+     *
+     * @param id The id written with a record
+     * @return The Compression that decompresses it
+     * @throws IOException There is no Compression with the id
+     */
+    private static Compression getCompression(int id) throws IOException {
+        if (id == Compression.NONE.getId()) {
+            return Compression.NONE;
+        } else if (id == Compression.FASTEST.getId()) { //Any level of Deflate decompresses the same
+            return Compression.FASTEST;
+        }
+        throw new IOException("Unknown chunk compression " + id);
+    }
+
+    /**
+     * Writes the Chunk into it's region file, replacing what was saved of it.
+     *
+     * @param chunk The Chunk to write
+     * @param compression How the record is compressed
+     * @throws IOException Something went wrong while writing
+     */
+    public void writeChunk(Chunk chunk, Compression compression) throws IOException {
+        writeRecord(chunk.getX(), chunk.getY(), encodeChunk(chunk, compression));
+    }
+
+    /**
+     * Writes the Chunks into their region files. Every Chunk is encoded and
+     * compressed on it's own, so they are all encoded at once on all the
+     * cores, then written in order as they are done.
+     *
+     * @param chunks The Chunks to write
+     * @param compression How the records are compressed
+     * @throws IOException Something went wrong while writing
+     */
+    public void writeChunks(List<Chunk> chunks, Compression compression) throws IOException {
+        ExecutorService encoders = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()));
+        try {
+            writeChunks(chunks, compression, encoders);
+        } finally {
+            encoders.shutdownNow(); //Stops encoding if something went wrong
+        }
+    }
+
+    /**
+     * Writes the Chunks into their region files, encoding and compressing
+     * them on the given Threads and writing them in order as they are done.
+     *
+     * @param chunks The Chunks to write
+     * @param compression How the records are compressed
+     * @param encoders The Threads that encode the Chunks
+     * @throws IOException Something went wrong while writing
+     */
+    public void writeChunks(List<Chunk> chunks, final Compression compression, ExecutorService encoders) throws IOException {
+        ArrayList<Future<byte[]>> records = new ArrayList<Future<byte[]>>();
+        for (int i = 0; i < chunks.size(); i++) {
+            final Chunk chunk = chunks.get(i);
+            records.add(encoders.submit(new Callable<byte[]>() {
+                public byte[] call() throws IOException {
+                    return encodeChunk(chunk, compression);
+                }
+            }));
+        }
+        try {
+            for (int i = 0; i < chunks.size(); i++) {
+                writeRecord(chunks.get(i).getX(), chunks.get(i).getY(), records.get(i).get());
+            }
+        } catch (InterruptedException ex) {
+            throw new IOException(ex);
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        } finally {
+            for (int i = 0; i < records.size(); i++) { //Stops encoding the rest if something went wrong
+                records.get(i).cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Encodes and compresses the Chunk into the record that is written to
+     * it's region file. Does not touch any files, so any amount of Chunks can
+     * be encoded at the same time by different Threads.
+     *
+     * @param chunk The Chunk to encode
+     * @param compression How the record is compressed
+     * @return The record, starting with the id of the Compression
+     * @throws IOException Something went wrong while encoding
+     */
+    public byte[] encodeChunk(Chunk chunk, Compression compression) throws IOException {
+        byte[] data = ChunkCodec.encode(chunk);
+        long startTime = System.nanoTime();
+        byte[] compressed = compression.compress(data);
+        long time = System.nanoTime() - startTime;
+        byte[] record = new byte[compressed.length + 1];
+        record[0] = (byte) compression.getId();
+        System.arraycopy(compressed, 0, record, 1, compressed.length);
+        synchronized (statisticsLock) {
+            chunksWritten++;
+            uncompressedBytes += data.length;
+            compressedBytes += compressed.length;
+            compressionTime += time;
+        }
+        Logger.getLogger(WorldStorage.class.getName()).log(Level.FINE, "Chunk ({0}, {1}): {2} bytes compressed to {3} in {4} ns",
+                new Object[]{chunk.getX(), chunk.getY(), data.length, compressed.length, time});
+        return record;
+    }
+
+    /**
+     * Writes a record made by encodeChunk() into the region file of the Chunk,
+     * replacing what was saved of it.
+     *
+     * @param x The x coordinate of the Chunk
+     * @param y The y coordinate of the Chunk
+     * @param record The record of the Chunk
+     * @throws IOException Something went wrong while writing
+     */
+    public void writeRecord(int x, int y, byte[] record) throws IOException {
+        getRegion(x, y, true).write(x & (RegionFile.SIZE - 1), y & (RegionFile.SIZE - 1), record);
+    }
+
+    /**
+     * Adds an edit to the ones waiting to be appended to the journal by
+     * flushJournal(). Only copies it into memory, so it can be called for every
+     * edit from the main Thread.
+     *
+     * @param chunkX The x coordinate of the Chunk
+     * @param chunkY The y coordinate of the Chunk
+     * @param index The index of the Block within the Chunk
+     * @param oldType The type of the Block before the edit
+     * @param newType The type of the Block after the edit
+     */
+    public void logEdit(int chunkX, int chunkY, int index, int oldType, int newType) {
+        synchronized (pendingLock) {
+            try {
+                pendingOutput.writeInt(chunkX);
+                pendingOutput.writeInt(chunkY);
+                pendingOutput.writeInt(index);
+                pendingOutput.writeShort(oldType);
+                pendingOutput.writeShort(newType);
+            } catch (IOException ex) { //Never thrown when writing to memory
+                Logger.getLogger(WorldStorage.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+    }
+
+    /**
+     *
+     * @return If there are edits waiting to be appended to the journal
+     */
+    public boolean hasPendingEdits() {
+        synchronized (pendingLock) {
+            return pendingEdits.size() > 0;
+        }
+    }
+
+    /**
+     * Appends the edits waiting for it to the journal and hands them to the
+     * system, so they are kept even if the game crashes. Edits can keep being
+     * logged while they are written.
+     */
+    public synchronized void flushJournal() {
+        byte[] edits;
+        synchronized (pendingLock) {
+            if (pendingEdits.size() == 0) {
+                return;
+            }
+            edits = pendingEdits.toByteArray();
+            pendingEdits.reset();
+        }
+        try {
+            if (journal == null) {
+                directory.mkdirs();
+                journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(getJournalFile(journalNumber), true)));
+            }
+            journal.write(edits);
+            journal.flush();
+        } catch (IOException ex) {
+            Logger.getLogger(WorldStorage.class.getName()).log(Level.SEVERE, null, ex);
+        }
+    }
+
+    /**
+     * Starts a new journal, so the edits made from now on are kept apart from
+     * the ones that are about to be saved. Should be called right when what is
+     * saved is copied.
+     *
+     * @return The number of the last journal that the save will cover
+     */
+    public synchronized int rotateJournal() {
+        flushJournal(); //The edits made so far are in the copies
+        closeJournal();
+        return journalNumber++;
+    }
+
+    /**
+     * Deletes the journals up to and including the given one, once everything
+     * in them is saved.
+     *
+     * @param lastNumber The number of the last journal to delete
+     */
+    public synchronized void deleteJournals(int lastNumber) {
+        int[] numbers = getJournalNumbers();
+        for (int i = 0; i < numbers.length && numbers[i] <= lastNumber; i++) {
+            if (!getJournalFile(numbers[i]).delete()) {
+                Logger.getLogger(WorldStorage.class.getName()).log(Level.SEVERE, "Could not delete {0}", getJournalFile(numbers[i]));
+            }
+        }
+    }
+
+    /**
+     * Puts back the edits of any journals left over from a crash into the
+     * region files, then deletes the journals. Edits are put back in the order
+     * they were made, so it does not matter if some of them were saved
+     * already. Should be called before the world is loaded.
+     *
+     * @return The amount of edits that were put back
+     * @throws IOException Something went wrong while reading or writing
+     */
+    public int replayJournals() throws IOException {
+        int[] numbers;
+        HashMap<Long, Chunk> chunks = new HashMap<Long, Chunk>();
+        int count;
+        synchronized (this) { //Not held while writing, since writeChunks() waits on other Threads
+            numbers = getJournalNumbers();
+            if (numbers.length == 0) {
+                return 0;
+            }
+            count = readJournals(numbers, chunks);
+        }
+        writeChunks(new ArrayList<Chunk>(chunks.values()), Compression.FASTEST);
+        synchronized (this) {
+            deleteJournals(numbers[numbers.length - 1]);
+            journalNumber = numbers[numbers.length - 1] + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Reads the edits of the journals into the Chunks they were made to,
+     * reading each Chunk from it's region file the first time it is edited.
+     *
+     * @param numbers The numbers of the journals, in order
+     * @param chunks Where the edited Chunks are put, by packed coordinates
+     * @return The amount of edits that were read
+     * @throws IOException Something went wrong while reading
+     */
+    private int readJournals(int[] numbers, HashMap<Long, Chunk> chunks) throws IOException {
+        int count = 0;
+        for (int i = 0; i < numbers.length; i++) {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(getJournalFile(numbers[i]))));
+            try {
+                while (true) {
+                    int chunkX = input.readInt(), chunkY = input.readInt(), index = input.readInt();
+                    input.readShort(); //The old type is only kept for reading the journal by hand
+                    int type = input.readShort();
+                    long key = ChunkMap.pack(chunkX, chunkY);
+                    Chunk chunk = chunks.get(key);
+                    if (chunk == null) {
+                        chunk = readChunk(chunkX, chunkY);
+                        if (chunk == null) { //Was never saved; only has the edits in the journal
+                            chunk = new Chunk(chunkX, chunkY);
+                        }
+                        chunks.put(key, chunk);
+                    }
+                    chunk.applyEdit(index, type);
+                    count++;
+                }
+            } catch (EOFException ex) { //The end of the journal, or an edit cut off by the crash
+            } finally {
+                input.close();
+            }
+        }
+        return count;
+    }
+
+    /**
+     *
+     * @param number The number of the journal
+     * @return The file of the journal
+     */
+    private File getJournalFile(int number) {
+        return new File(directory, JOURNAL_PREFIX + number + JOURNAL_SUFFIX);
+    }
+
+    /**
+     *
+     * @return The numbers of the journals in the directory, from the oldest
+     */
+    private int[] getJournalNumbers() {
+        String[] names = directory.list();
+        if (names == null) { //Nothing was saved yet
+            return new int[0];
+        }
+        int[] numbers = new int[names.length];
+        int count = 0;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].startsWith(JOURNAL_PREFIX) && names[i].endsWith(JOURNAL_SUFFIX)) {
+                try {
+                    numbers[count] = Integer.parseInt(names[i].substring(JOURNAL_PREFIX.length(),
+                            names[i].length() - JOURNAL_SUFFIX.length()));
+                    count++;
+                } catch (NumberFormatException ex) { //Not a journal
+                }
+            }
+        }
+        numbers = Arrays.copyOf(numbers, count);
+        Arrays.sort(numbers);
+        return numbers;
+    }
+
+    /**
+     * Closes the journal being appended to, if it is open.
+     */
+    private synchronized void closeJournal() {
+        flushJournal();
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException ex) {
+            Logger.getLogger(WorldStorage.class.getName()).log(Level.SEVERE, null, ex);
+        }
+        journal = null;
+    }
+
+    /**
+     * Sets the statistics of the chunks written back to 0.
+     */
+    public void resetStatistics() {
+        synchronized (statisticsLock) {
+            chunksWritten = 0;
+            uncompressedBytes = 0;
+            compressedBytes = 0;
+            compressionTime = 0;
+        }
+    }
+
+    /**
+     *
+     * @return The amount of Chunks written since the statistics were reset
+     */
+    public int getChunksWritten() {
+        synchronized (statisticsLock) {
+            return chunksWritten;
+        }
+    }
+
+    /**
+     *
+     * @return The total size of the records before they were compressed
+     */
+    public long getUncompressedBytes() {
+        synchronized (statisticsLock) {
+            return uncompressedBytes;
+        }
+    }
+
+    /**
+     *
+     * @return The total size of the records after they were compressed
+     */
+    public long getCompressedBytes() {
+        synchronized (statisticsLock) {
+            return compressedBytes;
+        }
+    }
+
+    /**
+     *
+     * @return The total time spent compressing, in nanoseconds
+     */
+    public long getCompressionTime() {
+        synchronized (statisticsLock) {
+            return compressionTime;
+        }
+    }
+
+    /**
+     *
+     * @return A line describing the statistics, for logging
+     */
+    public String getStatistics() {
+        synchronized (statisticsLock) {
+            return chunksWritten + " chunks, " + uncompressedBytes + " bytes compressed to " + compressedBytes
+                    + " bytes (" + (chunksWritten == 0 ? 0 : compressedBytes / chunksWritten) + " per chunk) in "
+                    + compressionTime / 1000000 + " ms";
+        }
+    }
+
+    /**
+     * Moves everything saved in the world into a new directory beside it, for
+     * when it could not be loaded, so nothing in it is lost and a new Game can
+     * be saved in it's place.
+     *
+     * @return The directory it was moved to, or null if nothing was saved
+     * @throws IOException The directory could not be moved
+     */
+    public synchronized File moveAside() throws IOException {
+        close();
+        if (!directory.exists()) { //Nothing to keep
+            return null;
+        }
+        File aside = new File(directory.getPath() + "." + System.currentTimeMillis() + ".bak");
+        if (!directory.renameTo(aside)) {
+            throw new IOException("Could not move " + directory + " to " + aside);
+        }
+        return aside;
+    }
+
+    /**
+     * Deletes everything saved in the world, for when a new Game replaces it.
+     */
+    public synchronized void delete() {
+        close();
+        File[] files = directory.listFiles();
+        if (files == null) { //Nothing was saved yet
+            return;
+        }
+        for (int i = 0; i < files.length; i++) {
+            if (!files[i].delete()) {
+                Logger.getLogger(WorldStorage.class.getName()).log(Level.SEVERE, "Could not delete {0}", files[i]);
+            }
+        }
+    }
+
+    /**
+     * Closes all the region files that are open.
+     */
+    public synchronized void close() {
+        closeJournal();
+        Iterator<RegionFile> iterator = regions.values().iterator();
+        while (iterator.hasNext()) {
+            try {
+                iterator.next().close();
+            } catch (IOException ex) {
+                Logger.getLogger(WorldStorage.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+        regions.clear();
+    }
+}
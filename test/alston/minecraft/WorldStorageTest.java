@@ -0,0 +1,116 @@
+package alston.minecraft;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the WorldStorage that do not need the game to be running.
+ *
+ * @author Alston
+ * @version RTM
+ */
+public class WorldStorageTest {
+
+    private File directory;
+
+    /**
+     * Creates an empty directory for the world.
+     *
+     * @throws IOException The temporary directory could not be created
+     */
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("world", "");
+        directory.delete();
+        directory.mkdirs();
+    }
+
+    /**
+     * Deletes the world.
+     */
+    @After
+    public void tearDown() {
+        new WorldStorage(directory).delete();
+        directory.delete();
+    }
+
+    /**
+     * Replays a journal left over from a crash through writeChunks(), both
+     * into a Chunk that was saved before and one that never was. Fails by
+     * timing out if replaying deadlocks.
+     *
+     * @throws IOException Something went wrong while reading or writing
+     */
+    @Test(timeout = 10000)
+    public void testReplayJournals() throws IOException {
+        WorldStorage storage = new WorldStorage(directory);
+        Chunk saved = new Chunk(0, 0);
+        saved.applyEdit(10, Item.DIRT);
+        storage.writeChunk(saved, Compression.FASTEST);
+        storage.logEdit(0, 0, 20, Item.AIR, Item.STONE);
+        storage.logEdit(0, 0, 10, Item.DIRT, Item.AIR);
+        storage.logEdit(-1, 2, 30, Item.AIR, Item.TORCH);
+        storage.close(); //Crashes without saving the edits
+
+        storage = new WorldStorage(directory);
+        assertEquals(3, storage.replayJournals());
+        assertEquals(2, storage.getChunksWritten());
+        Map<Integer, Integer> edits = storage.readChunk(0, 0).getEdits();
+        assertEquals(Integer.valueOf(Item.STONE), edits.get(20));
+        assertEquals(Integer.valueOf(Item.AIR), edits.get(10));
+        Chunk unsaved = storage.readChunk(-1, 2);
+        assertEquals(Integer.valueOf(Item.TORCH), unsaved.getEdits().get(30));
+        assertTrue(unsaved.getBlockEntities().isEmpty()); //The Torch is only created once the Chunk is restored
+        assertEquals(0, storage.replayJournals()); //The journal was deleted
+        storage.close();
+    }
+
+    /**
+     * Keeps logged edits in memory until the journal is flushed, then hands
+     * them to the system so they can be replayed after a crash.
+     *
+     * @throws IOException Something went wrong while reading or writing
+     */
+    @Test
+    public void testFlushJournal() throws IOException {
+        WorldStorage storage = new WorldStorage(directory);
+        storage.logEdit(3, 4, 5, Item.AIR, Item.WOOD);
+        assertTrue(storage.hasPendingEdits());
+        assertEquals(0, directory.list().length); //Nothing touched the disk yet
+        storage.flushJournal();
+        assertFalse(storage.hasPendingEdits());
+        assertTrue(new File(directory, "edits.0.log").length() > 0);
+        WorldStorage afterCrash = new WorldStorage(directory); //Without closing the first one
+        assertEquals(1, afterCrash.replayJournals());
+        assertEquals(Integer.valueOf(Item.WOOD), afterCrash.readChunk(3, 4).getEdits().get(5));
+        afterCrash.close();
+        storage.close();
+    }
+
+    /**
+     * Moves a world that could not be loaded aside, keeping everything in it.
+     *
+     * @throws IOException Something went wrong while writing or moving
+     */
+    @Test
+    public void testMoveAside() throws IOException {
+        WorldStorage storage = new WorldStorage(directory);
+        storage.writeLevel(new byte[]{1, 2, 3});
+        storage.logEdit(0, 0, 20, Item.AIR, Item.STONE);
+        File aside = storage.moveAside();
+        try {
+            assertFalse(directory.exists());
+            assertTrue(new File(aside, "level.sav").exists());
+            assertEquals(1, new WorldStorage(aside).replayJournals());
+        } finally {
+            new WorldStorage(aside).delete();
+            aside.delete();
+        }
+        assertNull(storage.moveAside()); //Nothing left to move
+    }
+}